@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.IntervalDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.config.CacheConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Busy windows of an item made of its APPROVED and WAITING bookings that have not ended yet.
+ * Windows are half-open [start, end) and are cached per item until a booking of the item changes.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingAvailability {
+    public static final Set<BookingStatus> BUSY_STATUSES = Set.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+
+    private final BookingRepository bookingRepository;
+
+    @Cacheable(cacheNames = CacheConfig.ITEM_BUSY_INTERVALS, sync = true)
+    public List<IntervalDto> getBusyIntervals(long itemId) {
+        List<Booking> bookings = bookingRepository.findAllByItemIdAndStatusInAndEndAfter(
+                itemId,
+                BUSY_STATUSES,
+                LocalDateTime.now());
+        return mergeIntervals(bookings);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.ITEM_BUSY_INTERVALS)
+    public void evict(long itemId) {
+    }
+
+    /**
+     * Gaps between sorted, non-overlapping busy windows inside [from, to).
+     */
+    public static List<IntervalDto> freeIntervals(List<IntervalDto> busy, LocalDateTime from, LocalDateTime to) {
+        List<IntervalDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (IntervalDto interval : busy) {
+            if (!interval.getEnd().isAfter(cursor)) {
+                continue;
+            }
+            if (!interval.getStart().isBefore(to)) {
+                break;
+            }
+            if (interval.getStart().isAfter(cursor)) {
+                free.add(new IntervalDto(cursor, interval.getStart()));
+            }
+            cursor = interval.getEnd();
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new IntervalDto(cursor, to));
+        }
+        return free;
+    }
+
+    /**
+     * Sweep line over start and end events: a busy window opens when the first booking starts
+     * and closes when no booking is running. Starts go before ends at the same moment,
+     * so back-to-back bookings form one window.
+     */
+    static List<IntervalDto> mergeIntervals(List<Booking> bookings) {
+        List<Event> events = new ArrayList<>(bookings.size() * 2);
+        for (Booking booking : bookings) {
+            events.add(new Event(booking.getStart(), 1));
+            events.add(new Event(booking.getEnd(), -1));
+        }
+        events.sort(Comparator.comparing((Event event) -> event.time).thenComparing(event -> -event.delta));
+        List<IntervalDto> busy = new ArrayList<>();
+        int running = 0;
+        LocalDateTime opened = null;
+        for (Event event : events) {
+            if (running == 0) {
+                opened = event.time;
+            }
+            running += event.delta;
+            if (running == 0) {
+                busy.add(new IntervalDto(opened, event.time));
+            }
+        }
+        return Collections.unmodifiableList(busy);
+    }
+
+    private static class Event {
+        private final LocalDateTime time;
+        private final int delta;
+
+        private Event(LocalDateTime time, int delta) {
+            this.time = time;
+            this.delta = delta;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Inserts new bookings with JDBC batches instead of one statement per entity; the generated ids are set back on
+ * the given bookings. Runs on the connection of the current transaction.
+ */
+@Slf4j
+@Component
+public class BookingBatchWriter {
+    private static final String INSERT_BOOKING = "insert into bookings " +
+            "(start_date, end_date, item_id, booker_id, owner_id, status, created_date, phase, version) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public BookingBatchWriter(DataSource dataSource,
+                              @Value("${shareit.booking-batch.jdbc-batch-size:100}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+    }
+
+    public void insert(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Booking booking : bookings) {
+            if (booking.getCreated() == null) {
+                booking.setCreated(now);
+            }
+            if (booking.getPhase() == null) {
+                booking.setPhase(BookingPhase.of(booking.getStart(), booking.getEnd(), now));
+            }
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    INSERT_BOOKING, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < bookings.size(); from += batchSize) {
+                    List<Booking> batch = bookings.subList(from, Math.min(from + batchSize, bookings.size()));
+                    for (Booking booking : batch) {
+                        bind(statement, booking);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    readIds(statement, batch);
+                }
+            }
+            return null;
+        });
+        log.info("Пакетом добавлено {} бронирований.", bookings.size());
+    }
+
+    private static void bind(PreparedStatement statement, Booking booking) throws SQLException {
+        statement.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+        statement.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+        statement.setLong(3, booking.getItemId());
+        statement.setLong(4, booking.getBookerId());
+        statement.setLong(5, booking.getOwnerId());
+        statement.setString(6, booking.getStatus().name());
+        statement.setTimestamp(7, Timestamp.valueOf(booking.getCreated()));
+        statement.setString(8, booking.getPhase().name());
+    }
+
+    private static void readIds(PreparedStatement statement, List<Booking> batch) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (Booking booking : batch) {
+                if (!keys.next()) {
+                    throw new SQLException("Драйвер вернул не все id добавленных бронирований.");
+                }
+                booking.setId(keys.getLong("id"));
+            }
+        }
+    }
+
+}
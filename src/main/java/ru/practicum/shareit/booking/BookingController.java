@@ -1,15 +1,29 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.config.WebConfig;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.user.SharerUser;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -17,42 +31,107 @@ import java.util.Collection;
 @Validated
 public class BookingController {
     private final BookingService bookingService;
+    private final IdempotencyStore idempotencyStore;
+
+    @Value("${shareit.booking-export.timeout}")
+    private Duration exportTimeout;
 
     @GetMapping
-    public Collection<BookingDtoFullOut> getListOfBookingsBooker(
-            @RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<Collection<BookingDtoFullOut>> getListOfBookingsBooker(
+            SharerUser user,
             @RequestParam(value = "state", defaultValue = "ALL", required = false) String bookingState,
             @RequestParam(value = "from", defaultValue = "0", required = false) @PositiveOrZero int start,
-            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size) {
-        return bookingService.getListOfBookingsBooker(userId, bookingState, start, size);
+            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "total", defaultValue = "false", required = false) boolean total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (total) {
+            bookingService.countBookingsBooker(user.getId(), bookingState)
+                    .ifPresent(count -> response.header(CursorPage.TOTAL_COUNT_HEADER, String.valueOf(count)));
+        }
+        if (cursor == null) {
+            return response.body(bookingService.getListOfBookingsBooker(user.getId(), bookingState, start, size));
+        }
+        return toResponse(response,
+                bookingService.getListOfBookingsBookerByCursor(user.getId(), bookingState, cursor, size));
     }
 
     @GetMapping("/owner")
-    public Collection<BookingDtoFullOut> getListOfBookingsOwner(
-            @RequestHeader("X-Sharer-User-Id") long ownerId,
+    public ResponseEntity<Collection<BookingDtoFullOut>> getListOfBookingsOwner(
+            SharerUser user,
             @RequestParam(value = "state", defaultValue = "ALL", required = false) String bookingState,
             @RequestParam(value = "from", defaultValue = "0", required = false) @PositiveOrZero int start,
-            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size) {
-        return bookingService.getListOfBookingsOwner(ownerId, bookingState, start, size);
+            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "total", defaultValue = "false", required = false) boolean total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (total) {
+            bookingService.countBookingsOwner(user.getId(), bookingState)
+                    .ifPresent(count -> response.header(CursorPage.TOTAL_COUNT_HEADER, String.valueOf(count)));
+        }
+        if (cursor == null) {
+            return response.body(bookingService.getListOfBookingsOwner(user.getId(), bookingState, start, size));
+        }
+        return toResponse(response,
+                bookingService.getListOfBookingsOwnerByCursor(user.getId(), bookingState, cursor, size));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            SharerUser user,
+            @RequestParam(value = "role", defaultValue = "OWNER", required = false) String role,
+            @RequestParam(value = "format", defaultValue = "ndjson", required = false) String format,
+            HttpServletRequest request) {
+        BookingExportFormat exportFormat = BookingExportFormat.from(format);
+        request.setAttribute(WebConfig.ASYNC_TIMEOUT_ATTRIBUTE, exportTimeout);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(bookingService.exportBookings(user.getId(), role, exportFormat));
     }
 
     @GetMapping("/{bookingId}")
-    public BookingDtoFullOut getBookingInfo(@RequestHeader("X-Sharer-User-Id") long userId,
+    public BookingDtoFullOut getBookingInfo(SharerUser user,
                                             @PathVariable long bookingId) {
-        return bookingService.getBookingInfo(userId, bookingId);
+        return bookingService.getBookingInfo(user.getId(), bookingId);
     }
 
     @PostMapping
-    public BookingDtoFullOut createBooking(@RequestHeader("X-Sharer-User-Id") long userId,
-                                           @Validated @RequestBody BookingDtoIn bookingDto) {
-        return bookingService.createBooking(bookingDto, userId);
+    public BookingDtoFullOut createBooking(
+            SharerUser user,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Validated @RequestBody BookingDtoIn bookingDto) {
+        return idempotencyStore.execute(user.getId(), "POST /bookings", idempotencyKey, bookingDto,
+                () -> bookingService.createBooking(bookingDto, user.getId()));
+    }
+
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(
+            SharerUser user,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Validated @RequestBody BookingBatchDtoIn batchDto) {
+        return idempotencyStore.execute(user.getId(), "POST /bookings/batch", idempotencyKey, batchDto,
+                () -> bookingService.createBookings(batchDto, user.getId()));
+    }
+
+    @PatchMapping("/approval")
+    public List<BookingBatchResultDto> approveBookings(SharerUser user,
+                                                       @Validated @RequestBody BookingApprovalDtoIn approvalDto) {
+        return bookingService.approveBookings(approvalDto, user.getId());
     }
 
     @PatchMapping("/{bookingId}")
     public BookingDtoFullOut doApprovedBooking(@PathVariable long bookingId,
-                                               @RequestHeader("X-Sharer-User-Id") long userId,
+                                               SharerUser user,
                                                @RequestParam String approved) {
-        return bookingService.getApprovedBooking(bookingId, userId, approved);
+        return bookingService.getApprovedBooking(bookingId, user.getId(), approved);
+    }
+
+    private static ResponseEntity<Collection<BookingDtoFullOut>> toResponse(ResponseEntity.BodyBuilder response,
+                                                                           CursorPage<BookingDtoFullOut> page) {
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
     }
 
 }
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes all bookings of a user row by row from a forward-only JDBC cursor, so memory does not grow with the export.
+ */
+@Slf4j
+@Component
+public class BookingExporter {
+    private static final String SELECT_BOOKINGS = "select b.id, b.start_date, b.end_date, b.status, b.booker_id, " +
+            "i.id as item_id, i.item_name " +
+            "from bookings as b join items as i on i.id = b.item_id ";
+    private static final String ORDER_BY = " order by b.start_date desc, b.id desc";
+    private static final String CSV_HEADER = "id,start,end,status,booker_id,item_id,item_name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public BookingExporter(DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper,
+                           @Value("${shareit.booking-export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * PostgreSQL honours the fetch size only inside a transaction, so the query always runs in one.
+     */
+    public void export(long userId, BookingRole role, BookingExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        String sql = SELECT_BOOKINGS + (role == BookingRole.OWNER ? "where b.owner_id = ?" : "where b.booker_id = ?")
+                + ORDER_BY;
+        AtomicLong rows = new AtomicLong();
+        if (format == BookingExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, resultSet -> {
+                write(writer, format, resultSet);
+                rows.incrementAndGet();
+            }, userId));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Выгружено {} бронирований пользователя ID = {} в формате {}.", rows.get(), userId, format);
+    }
+
+    private void write(Writer writer, BookingExportFormat format, ResultSet resultSet) throws SQLException {
+        BookingDtoFullOut booking = new BookingDtoFullOut(
+                resultSet.getLong("id"),
+                resultSet.getTimestamp("start_date").toLocalDateTime(),
+                resultSet.getTimestamp("end_date").toLocalDateTime(),
+                BookingStatus.valueOf(resultSet.getString("status")),
+                resultSet.getLong("booker_id"),
+                resultSet.getLong("item_id"),
+                resultSet.getString("item_name"));
+        try {
+            if (format == BookingExportFormat.CSV) {
+                writer.write(toCsv(booking));
+            } else {
+                writer.write(objectMapper.writeValueAsString(booking));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(BookingDtoFullOut booking) {
+        return booking.getId() + "," +
+                booking.getStart() + "," +
+                booking.getEnd() + "," +
+                booking.getStatus() + "," +
+                booking.getBooker().getId() + "," +
+                booking.getItem().getId() + "," +
+                csvField(booking.getItem().getName());
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,290 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of APPROVED booking windows, one interval tree per item.
+ * Windows are half-open [start, end), so a booking may start exactly when the previous one ends.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    private static final int LOCK_STRIPES = 64;
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, IntervalTree> trees = new ConcurrentHashMap<>();
+    private final ReentrantLock[] itemLocks = createLocks();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Booking> approved = bookingRepository.findAllByStatusAndEndAfter(
+                BookingStatus.APPROVED,
+                LocalDateTime.now());
+        trees.clear();
+        approved.forEach(this::put);
+        log.info("Индекс бронирований загружен: {} бронирований, {} вещей.", approved.size(), trees.size());
+    }
+
+    public boolean hasOverlap(long itemId, LocalDateTime start, LocalDateTime end) {
+        IntervalTree tree = trees.get(itemId);
+        if (tree == null) {
+            return false;
+        }
+        synchronized (tree) {
+            return tree.overlaps(start, end);
+        }
+    }
+
+    public void add(Booking booking) {
+        afterCommit(() -> put(booking));
+    }
+
+    public void remove(Booking booking) {
+        afterCommit(() -> {
+            IntervalTree tree = trees.get(booking.getItemId());
+            if (tree != null) {
+                synchronized (tree) {
+                    tree.remove(booking.getId());
+                }
+            }
+        });
+    }
+
+    /**
+     * A window that has ended can no longer overlap a new booking, so it is dropped to keep the trees small.
+     */
+    @EventListener
+    public void onBookingLifecycleEvent(BookingLifecycleEvent event) {
+        if (event.getType() == BookingLifecycleEvent.Type.ENDED) {
+            remove(event.getBooking());
+        }
+    }
+
+    /**
+     * Serializes approvals of one item inside this JVM: the lock is released only when the current
+     * transaction completes, so the next approval already sees the committed window in the index.
+     */
+    public void lockItem(long itemId) {
+        lockItems(List.of(itemId));
+    }
+
+    /**
+     * Locks several items at once. Stripes are taken in ascending order, so two transactions locking
+     * overlapping sets of items cannot wait for each other in a cycle.
+     */
+    public void lockItems(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи возможна только внутри транзакции.");
+        }
+        List<ReentrantLock> locks = new ArrayList<>();
+        for (int stripe : itemIds.stream()
+                .map(itemId -> Math.floorMod(Long.hashCode(itemId), LOCK_STRIPES))
+                .collect(Collectors.toCollection(TreeSet::new))) {
+            ReentrantLock lock = itemLocks[stripe];
+            lock.lock();
+            locks.add(lock);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+
+    private static ReentrantLock[] createLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private void put(Booking booking) {
+        IntervalTree tree = trees.computeIfAbsent(booking.getItemId(), id -> new IntervalTree());
+        synchronized (tree) {
+            tree.add(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Treap ordered by (start, id) where every node keeps the latest end of its subtree,
+     * so an overlap search descends a single path.
+     */
+    static class IntervalTree {
+        private final Map<Long, Node> nodes = new HashMap<>();
+        private Node root;
+
+        void add(long id, LocalDateTime start, LocalDateTime end) {
+            remove(id);
+            Node node = new Node(id, start, end, ThreadLocalRandom.current().nextInt());
+            nodes.put(id, node);
+            root = insert(root, node);
+        }
+
+        void remove(long id) {
+            Node node = nodes.remove(id);
+            if (node != null) {
+                root = delete(root, node);
+            }
+        }
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            Node node = root;
+            while (node != null) {
+                if (node.start.isBefore(end) && start.isBefore(node.end)) {
+                    return true;
+                }
+                if (node.left != null && node.left.maxEnd.isAfter(start)) {
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return nodes.size();
+        }
+
+        private static Node insert(Node root, Node node) {
+            if (root == null) {
+                return node;
+            }
+            if (node.compareTo(root) < 0) {
+                root.left = insert(root.left, node);
+                if (root.left.priority > root.priority) {
+                    root = rotateRight(root);
+                }
+            } else {
+                root.right = insert(root.right, node);
+                if (root.right.priority > root.priority) {
+                    root = rotateLeft(root);
+                }
+            }
+            update(root);
+            return root;
+        }
+
+        private static Node delete(Node root, Node node) {
+            if (root == null) {
+                return null;
+            }
+            if (root == node) {
+                return merge(root.left, root.right);
+            }
+            if (node.compareTo(root) < 0) {
+                root.left = delete(root.left, node);
+            } else {
+                root.right = delete(root.right, node);
+            }
+            update(root);
+            return root;
+        }
+
+        private static Node merge(Node left, Node right) {
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                update(left);
+                return left;
+            }
+            right.left = merge(left, right.left);
+            update(right);
+            return right;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            update(node);
+            update(left);
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            update(node);
+            update(right);
+            return right;
+        }
+
+        private static void update(Node node) {
+            LocalDateTime maxEnd = node.end;
+            if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = node.left.maxEnd;
+            }
+            if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = node.right.maxEnd;
+            }
+            node.maxEnd = maxEnd;
+        }
+
+        private static class Node implements Comparable<Node> {
+            private final long id;
+            private final LocalDateTime start;
+            private final LocalDateTime end;
+            private final int priority;
+            private LocalDateTime maxEnd;
+            private Node left;
+            private Node right;
+
+            private Node(long id, LocalDateTime start, LocalDateTime end, int priority) {
+                this.id = id;
+                this.start = start;
+                this.end = end;
+                this.priority = priority;
+                this.maxEnd = end;
+            }
+
+            @Override
+            public int compareTo(Node other) {
+                int result = start.compareTo(other.start);
+                return result != 0 ? result : Long.compare(id, other.id);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.Booking;
+
+/**
+ * Published by BookingLifecycleScheduler after a booking started, ended or was canceled as a stale request.
+ */
+@Value
+public class BookingLifecycleEvent {
+    Type type;
+    Booking booking;
+
+    public enum Type {
+        STARTED,
+        ENDED,
+        EXPIRED
+    }
+}
@@ -0,0 +1,271 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one timer per pending booking transition in a hashed timing wheel: the expiry of a WAITING request
+ * after the configured TTL, and the start and end of an APPROVED booking. Timers live only in memory and are
+ * re-seeded from the repository on startup; the database is queried only for the bookings whose timers fired.
+ */
+@Slf4j
+@Component
+public class BookingLifecycleScheduler {
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int FIRE_BATCH_SIZE = 500;
+    private static final int RETRY_TICKS = 10;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration waitingTtl;
+    private final long tickMillis;
+    private final HashedTimingWheel<Timer> wheel;
+    private ScheduledExecutorService executor;
+
+    public BookingLifecycleScheduler(BookingRepository bookingRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${shareit.booking-lifecycle.waiting-ttl:24h}") Duration waitingTtl,
+                                     @Value("${shareit.booking-lifecycle.tick:1s}") Duration tick,
+                                     @Value("${shareit.booking-lifecycle.wheel-size:512}") int wheelSize) {
+        this.bookingRepository = bookingRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.waitingTtl = waitingTtl;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new HashedTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        Gauge.builder("shareit.booking.lifecycle.timers", wheel, HashedTimingWheel::size)
+                .description("Число ожидающих таймеров жизненного цикла бронирований")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LocalDateTime now = LocalDateTime.now();
+        long waiting = load(batchAfter -> bookingRepository.findAllByStatusAndIdGreaterThanOrderById(
+                BookingStatus.WAITING,
+                batchAfter,
+                PageRequest.of(0, LOAD_BATCH_SIZE)), this::putExpiry);
+        long approved = load(batchAfter -> bookingRepository.findAllByStatusAndEndAfterAndIdGreaterThanOrderById(
+                BookingStatus.APPROVED,
+                now,
+                batchAfter,
+                PageRequest.of(0, LOAD_BATCH_SIZE)), this::putLifecycle);
+        log.info("Таймеры бронирований загружены: {} ожидающих, {} одобренных.", waiting, approved);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void scheduleExpiry(Booking booking) {
+        afterCommit(() -> putExpiry(booking));
+    }
+
+    public void scheduleLifecycle(Booking booking) {
+        afterCommit(() -> putLifecycle(booking));
+    }
+
+    void tick() {
+        try {
+            fire(wheel.advance(System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            log.error("Ошибка обработки таймеров бронирований.", e);
+        }
+    }
+
+    /**
+     * Handles fired timers in batches, so that one IN list never grows with the number of timers due in a tick.
+     * The timers of a failed batch are put back on the wheel and fire again a few ticks later; a timer that has
+     * failed MAX_ATTEMPTS times is dropped and its booking is left to the next startup.
+     */
+    void fire(List<Timer> timers) {
+        for (int from = 0; from < timers.size(); from += FIRE_BATCH_SIZE) {
+            List<Timer> batch = timers.subList(from, Math.min(from + FIRE_BATCH_SIZE, timers.size()));
+            try {
+                fireBatch(batch);
+            } catch (RuntimeException e) {
+                log.error("Ошибка обработки таймеров бронирований, {} таймеров отложено.", batch.size(), e);
+                retry(batch);
+            }
+        }
+    }
+
+    private void retry(List<Timer> timers) {
+        long retryAt = System.currentTimeMillis() + RETRY_TICKS * tickMillis;
+        List<Long> dropped = new ArrayList<>();
+        for (Timer timer : timers) {
+            if (timer.getAttempts() + 1 < MAX_ATTEMPTS) {
+                wheel.schedule(timer.retry(), retryAt);
+            } else {
+                dropped.add(timer.getBookingId());
+            }
+        }
+        if (!dropped.isEmpty()) {
+            log.error("Таймеры бронирований {} отброшены после {} попыток.", dropped, MAX_ATTEMPTS);
+        }
+    }
+
+    /**
+     * EXPIRED events are published inside the transaction that cancels the requests: the listeners move the totals
+     * and evict availability within it, so if one of them fails the cancellation rolls back with it and the retry
+     * repeats both, instead of finding the requests already canceled and skipping their events.
+     */
+    private void fireBatch(List<Timer> timers) {
+        Map<Long, Booking> bookings = bookingRepository.findAllById(timers.stream()
+                        .map(Timer::getBookingId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        transactionTemplate.executeWithoutResult(status -> expire(timers, bookings)
+                .forEach(booking -> eventPublisher.publishEvent(
+                        new BookingLifecycleEvent(BookingLifecycleEvent.Type.EXPIRED, booking))));
+        for (Timer timer : timers) {
+            Booking booking = bookings.get(timer.getBookingId());
+            if (timer.getType() != BookingLifecycleEvent.Type.EXPIRED
+                    && booking != null && booking.getStatus() == BookingStatus.APPROVED) {
+                eventPublisher.publishEvent(new BookingLifecycleEvent(timer.getType(), booking));
+            }
+        }
+    }
+
+    /**
+     * Cancels requests that are still WAITING; a request approved or rejected meanwhile is left untouched.
+     */
+    private List<Booking> expire(List<Timer> timers, Map<Long, Booking> bookings) {
+        List<Booking> expired = new ArrayList<>();
+        for (Timer timer : timers) {
+            Booking booking = bookings.get(timer.getBookingId());
+            if (timer.getType() != BookingLifecycleEvent.Type.EXPIRED
+                    || booking == null || booking.getStatus() != BookingStatus.WAITING) {
+                continue;
+            }
+            if (bookingRepository.changeStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.CANCELED) == 1) {
+                booking.setStatus(BookingStatus.CANCELED);
+                expired.add(booking);
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Отменено {} заявок на бронирование без ответа дольше {}.", expired.size(), waitingTtl);
+        }
+        return expired;
+    }
+
+    private long load(Function<Long, List<Booking>> batches, Consumer<Booking> put) {
+        long loaded = 0;
+        long lastId = 0;
+        List<Booking> batch;
+        do {
+            batch = batches.apply(lastId);
+            batch.forEach(put);
+            loaded += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        return loaded;
+    }
+
+    private void putExpiry(Booking booking) {
+        LocalDateTime created = booking.getCreated() != null ? booking.getCreated() : LocalDateTime.now();
+        wheel.schedule(
+                new Timer(booking.getId(), BookingLifecycleEvent.Type.EXPIRED),
+                toMillis(created.plus(waitingTtl)));
+    }
+
+    private void putLifecycle(Booking booking) {
+        if (booking.getStart().isAfter(LocalDateTime.now())) {
+            wheel.schedule(
+                    new Timer(booking.getId(), BookingLifecycleEvent.Type.STARTED),
+                    toMillis(booking.getStart()));
+        }
+        wheel.schedule(new Timer(booking.getId(), BookingLifecycleEvent.Type.ENDED), toMillis(booking.getEnd()));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    static class Timer {
+        private final long bookingId;
+        private final BookingLifecycleEvent.Type type;
+        private final int attempts;
+
+        Timer(long bookingId, BookingLifecycleEvent.Type type) {
+            this(bookingId, type, 0);
+        }
+
+        Timer(long bookingId, BookingLifecycleEvent.Type type, int attempts) {
+            this.bookingId = bookingId;
+            this.type = type;
+            this.attempts = attempts;
+        }
+
+        Timer retry() {
+            return new Timer(bookingId, type, attempts + 1);
+        }
+
+        long getBookingId() {
+            return bookingId;
+        }
+
+        BookingLifecycleEvent.Type getType() {
+            return type;
+        }
+
+        int getAttempts() {
+            return attempts;
+        }
+    }
+
+}
@@ -7,13 +7,14 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 public class BookingMapper {
-    public static Booking mapNewBookingFromDto(BookingDtoIn bookingDto, Long userId) {
+    public static Booking mapNewBookingFromDto(BookingDtoIn bookingDto, Long userId, Long ownerId) {
         return new Booking(
                 0,
                 bookingDto.getStart(),
                 bookingDto.getEnd(),
                 bookingDto.getItemId(),
                 userId,
+                ownerId,
                 BookingStatus.WAITING
         );
     }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+public enum BookingPhase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    public static BookingPhase of(LocalDateTime start, LocalDateTime end, LocalDateTime time) {
+        if (start.isAfter(time)) {
+            return FUTURE;
+        }
+        return end.isAfter(time) ? CURRENT : PAST;
+    }
+}
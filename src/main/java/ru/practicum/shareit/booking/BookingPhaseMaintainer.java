@@ -0,0 +1,132 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Moves the phase column of bookings forward as time passes: FUTURE to CURRENT once a booking has started and
+ * CURRENT to PAST once it has ended. Each batch is updated in its own short transaction. A run is started every
+ * interval, so a phase lags behind the clock by less than {@link #RECHECK_WINDOW}, which the listings recheck.
+ * A catch-up run is made on startup before the schedule begins. Until a run has completed, or while the last
+ * one is older than the window, listings are told to recheck from further back (see {@link #recheckFromLastRun}).
+ */
+@Slf4j
+@Component
+public class BookingPhaseMaintainer {
+    public static final Duration RECHECK_WINDOW = Duration.ofMinutes(5);
+    private static final LocalDateTime RECHECK_ALL = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration interval;
+    private final int batchSize;
+    private ScheduledExecutorService executor;
+    private volatile LocalDateTime lastRunTime;
+
+    public BookingPhaseMaintainer(BookingRepository bookingRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${shareit.booking-phase.interval:30s}") Duration interval,
+                                  @Value("${shareit.booking-phase.batch-size:500}") int batchSize) {
+        if (interval.isNegative() || interval.isZero() || interval.compareTo(RECHECK_WINDOW.dividedBy(2)) > 0) {
+            throw new IllegalArgumentException("Интервал обновления фаз бронирований должен быть больше нуля " +
+                    "и не больше " + RECHECK_WINDOW.dividedBy(2) + ".");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета обновления фаз должен быть больше нуля.");
+        }
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+        this.batchSize = batchSize;
+    }
+
+    public static LocalDateTime recheckFrom(LocalDateTime time) {
+        return time.minus(RECHECK_WINDOW);
+    }
+
+    /**
+     * Moment from which the listings must recheck FUTURE bookings by time. Every booking that started before the
+     * last completed run has had its phase moved, so a window before that run is enough however far the maintainer
+     * lags. Before the first run every FUTURE booking is rechecked.
+     */
+    public LocalDateTime recheckFromLastRun(LocalDateTime time) {
+        LocalDateTime lastRun = lastRunTime;
+        if (lastRun == null) {
+            return RECHECK_ALL;
+        }
+        return recheckFrom(lastRun.isBefore(time) ? lastRun : time);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        run();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-phase");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    void run() {
+        try {
+            advance(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Ошибка обновления фаз бронирований.", e);
+        }
+    }
+
+    /**
+     * A booking that both started and ended since the last run goes through CURRENT to PAST in the same run.
+     */
+    long advance(LocalDateTime time) {
+        long started = shift(BookingPhase.FUTURE, BookingPhase.CURRENT, page ->
+                bookingRepository.findIdsByPhaseAndStartReached(BookingPhase.FUTURE, time, page));
+        long ended = shift(BookingPhase.CURRENT, BookingPhase.PAST, page ->
+                bookingRepository.findIdsByPhaseAndEndReached(BookingPhase.CURRENT, time, page));
+        if (started + ended > 0) {
+            log.info("Фазы бронирований обновлены: {} началось, {} завершилось.", started, ended);
+        }
+        lastRunTime = time;
+        return started + ended;
+    }
+
+    private long shift(BookingPhase from, BookingPhase to, Function<PageRequest, List<Long>> due) {
+        long shifted = 0;
+        int found;
+        do {
+            found = transactionTemplate.execute(status -> {
+                List<Long> ids = due.apply(PageRequest.of(0, batchSize));
+                if (!ids.isEmpty()) {
+                    bookingRepository.changePhase(ids, from, to);
+                }
+                return ids.size();
+            });
+            shifted += found;
+        } while (found == batchSize);
+        return shifted;
+    }
+
+}
@@ -1,80 +1,152 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
 import ru.practicum.shareit.booking.model.Booking;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    Page<Booking> findByBookerIdOrderByStartDesc(long bookerId, Pageable pageable);
+    String BOOKING_DTO_QUERY = "select new ru.practicum.shareit.booking.dto.BookingDtoFullOut(" +
+            "b.id, b.start, b.end, b.status, b.bookerId, i.id, i.name) " +
+            "from Booking as b, Item as i " +
+            "where i.id = b.itemId ";
+    String PHASE = "ru.practicum.shareit.booking.BookingPhase.";
+    /**
+     * The phase column lags behind the clock, so bookings that started after the recheck moment may still be marked
+     * FUTURE; the exact time predicate is rechecked. See {@link BookingPhaseMaintainer#recheckFromLastRun}.
+     */
+    String CURRENT_PHASE = "and (b.phase = " + PHASE + "CURRENT " +
+            "or (b.phase = " + PHASE + "FUTURE and b.start > ?3)) " +
+            "and b.start < ?2 and b.end > ?2 ";
+    String PAST_PHASE = "and (b.phase = " + PHASE + "PAST or b.phase = " + PHASE + "CURRENT " +
+            "or (b.phase = " + PHASE + "FUTURE and b.start > ?3)) " +
+            "and b.end < ?2 ";
+    String FUTURE_PHASE = "and b.phase = " + PHASE + "FUTURE and b.start > ?2 ";
+
+    @Query(BOOKING_DTO_QUERY +
+            "and b.bookerId = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findAllDtoByBooker(
+            long bookerId,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStartAfterOrderByStartDesc(long bookerId, LocalDateTime start, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.bookerId = ?1 " + CURRENT_PHASE +
+            "and (b.start < ?4 or (b.start = ?4 and b.id < ?5)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findCurrentDtoByBooker(
+            long bookerId,
+            LocalDateTime time,
+            LocalDateTime recheckFrom,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
+    @Query(BOOKING_DTO_QUERY +
+            "and b.bookerId = ?1 " + PAST_PHASE +
+            "and (b.start < ?4 or (b.start = ?4 and b.id < ?5)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findPastDtoByBooker(
             long bookerId,
-            LocalDateTime start,
-            LocalDateTime end,
+            LocalDateTime time,
+            LocalDateTime recheckFrom,
+            LocalDateTime cursorTime,
+            long cursorId,
             Pageable pageable);
 
-    Page<Booking> findByBookerIdAndEndIsBeforeOrderByStartDesc(long bookerId, LocalDateTime end, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.bookerId = ?1 " + FUTURE_PHASE +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findFutureDtoByBooker(
+            long bookerId,
+            LocalDateTime time,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStatusEqualsOrderByStartDesc(long bookerId, BookingStatus status, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.bookerId = ?1 and b.status = ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findStatusDtoByBooker(
+            long bookerId,
+            BookingStatus status,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    @Query(value = "select * " +
-            "from bookings as b join items i on i.id = b.item_id " +
-            "where i.owner_id = ?1 " +
-            "order by start_date desc ",
-            countQuery = "select count(*) " +
-                    "from bookings as b join items i on i.id = b.item_id " +
-                    "where i.owner_id = ?1 ",
-            nativeQuery = true)
-    Page<Booking> findAllBookingsForOwner(long ownerId, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.ownerId = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findAllDtoByOwner(
+            long ownerId,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    @Query(value = "select * " +
-            "from bookings as b join items i on i.id = b.item_id " +
-            "where i.owner_id = ?1 and b.start_date< ?2 and b.end_date > ?2 " +
-            "order by start_date desc ",
-            countQuery = "select count(*) " +
-                    "from bookings as b join items i on i.id = b.item_id " +
-                    "where i.owner_id = ?1 and b.start_date< ?2 and b.end_date > ?2 ",
-            nativeQuery = true)
-    Page<Booking> findCurrentBookingsForOwner(long ownerId, LocalDateTime time, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.ownerId = ?1 " + CURRENT_PHASE +
+            "and (b.start < ?4 or (b.start = ?4 and b.id < ?5)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findCurrentDtoByOwner(
+            long ownerId,
+            LocalDateTime time,
+            LocalDateTime recheckFrom,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    @Query(value = "select * " +
-            "from bookings as b join items i on i.id = b.item_id " +
-            "where i.owner_id = ?1 and b.end_date < ?2 " +
-            "order by start_date desc ",
-            countQuery = "select count(*) " +
-                    "from bookings as b join items i on i.id = b.item_id " +
-                    "where i.owner_id = ?1 and b.end_date < ?2 ",
-            nativeQuery = true)
-    Page<Booking> findPastBookingsForOwner(long ownerId, LocalDateTime time, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.ownerId = ?1 " + PAST_PHASE +
+            "and (b.start < ?4 or (b.start = ?4 and b.id < ?5)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findPastDtoByOwner(
+            long ownerId,
+            LocalDateTime time,
+            LocalDateTime recheckFrom,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    @Query(value = "select * " +
-            "from bookings as b join items i on i.id = b.item_id " +
-            "where i.owner_id = ?1 and b.start_date > ?2 " +
-            "order by start_date desc ",
-            countQuery = "select count(*) " +
-                    "from bookings as b join items i on i.id = b.item_id " +
-                    "where i.owner_id = ?1 and b.start_date > ?2 ",
-            nativeQuery = true)
-    Page<Booking> findFutureBookingsForOwner(long ownerId, LocalDateTime time, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.ownerId = ?1 " + FUTURE_PHASE +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findFutureDtoByOwner(
+            long ownerId,
+            LocalDateTime time,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
 
-    @Query(value = "select * " +
-            "from bookings as b join items i on i.id = b.item_id " +
-            "where i.owner_id = ?1 and b.status = ?2 " +
-            "order by start_date desc ",
-            countQuery = "select count(*) " +
-                    "from bookings as b join items i on i.id = b.item_id " +
-                    "where i.owner_id = ?1 and b.status = ?2 ",
-            nativeQuery = true)
-    Page<Booking> findStatusBookingsForOwner(long ownerId, String status, Pageable pageable);
+    @Query(BOOKING_DTO_QUERY +
+            "and b.ownerId = ?1 and b.status = ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoFullOut> findStatusDtoByOwner(
+            long ownerId,
+            BookingStatus status,
+            LocalDateTime cursorTime,
+            long cursorId,
+            Pageable pageable);
+
+    long countByBookerIdAndStatus(long bookerId, BookingStatus status);
+
+    long countByOwnerIdAndStatus(long ownerId, BookingStatus status);
 
     @Query(value = "select * " +
             "from bookings as b join items i on i.id = b.item_id " +
@@ -90,7 +162,56 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "limit 1", nativeQuery = true)
     Optional<Booking> findNextBookingByItem(long itemId, LocalDateTime time);
 
+    @Query(value = "select id, start_date, end_date, item_id, booker_id, owner_id, status, " +
+            "created_date, phase, version " +
+            "from (select b.*, row_number() over (partition by b.item_id order by b.end_date desc, b.id desc) as rn " +
+            "from bookings as b " +
+            "where b.item_id in (?1) and b.end_date < ?2) as last_bookings " +
+            "where rn = 1", nativeQuery = true)
+    List<Booking> findLastBookingsByItems(Collection<Long> itemIds, LocalDateTime time);
+
+    @Query(value = "select id, start_date, end_date, item_id, booker_id, owner_id, status, " +
+            "created_date, phase, version " +
+            "from (select b.*, row_number() over (partition by b.item_id order by b.end_date desc, b.id desc) as rn " +
+            "from bookings as b " +
+            "where b.item_id in (?1) and b.start_date > ?2) as next_bookings " +
+            "where rn = 1", nativeQuery = true)
+    List<Booking> findNextBookingsByItems(Collection<Long> itemIds, LocalDateTime time);
+
     Optional<Booking> findBookingByItemIdAndBookerIdAndEndIsBefore(long itemId, long userId, LocalDateTime time);
 
+    @Query("select b.status from Booking as b where b.id = ?1")
+    BookingStatus findStatusById(long bookingId);
+
+    List<Booking> findAllByStatusAndEndAfter(BookingStatus status, LocalDateTime time);
+
+    List<Booking> findAllByStatusAndIdGreaterThanOrderById(BookingStatus status, long id, Pageable pageable);
+
+    List<Booking> findAllByStatusAndEndAfterAndIdGreaterThanOrderById(BookingStatus status,
+                                                                      LocalDateTime time,
+                                                                      long id,
+                                                                      Pageable pageable);
+
+    @Modifying
+    @Query("update Booking as b set b.status = ?3, b.version = b.version + 1 where b.id = ?1 and b.status = ?2")
+    int changeStatus(long bookingId, BookingStatus expected, BookingStatus status);
+
+    @Query("select b.id from Booking as b where b.id in ?1 and b.status = ?2")
+    List<Long> findIdsByIdInAndStatus(Collection<Long> bookingIds, BookingStatus status);
+
+    @Query("select b.id from Booking as b where b.phase = ?1 and b.start <= ?2")
+    List<Long> findIdsByPhaseAndStartReached(BookingPhase phase, LocalDateTime time, Pageable pageable);
+
+    @Query("select b.id from Booking as b where b.phase = ?1 and b.end <= ?2")
+    List<Long> findIdsByPhaseAndEndReached(BookingPhase phase, LocalDateTime time, Pageable pageable);
+
+    @Modifying
+    @Query("update Booking as b set b.phase = ?3 where b.id in ?1 and b.phase = ?2")
+    int changePhase(Collection<Long> bookingIds, BookingPhase expected, BookingPhase phase);
+
+    List<Booking> findAllByItemIdAndStatusInAndEndAfter(long itemId,
+                                                        Collection<BookingStatus> statuses,
+                                                        LocalDateTime time);
+
 }
 
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timing wheel: a timer goes to the bucket of its deadline tick modulo the wheel size and
+ * keeps the number of full turns left, so a tick touches only one bucket whatever the number of timers.
+ * Timers may be added from any thread; advance must be called from a single thread.
+ */
+public class HashedTimingWheel<T> {
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final Queue<Timeout<T>>[] buckets;
+    private final Queue<Timeout<T>> added = new ConcurrentLinkedQueue<>();
+    private final AtomicLong size = new AtomicLong();
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Шаг колеса должен быть больше нуля, размер - степенью двойки.");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    public void schedule(T task, long deadlineMillis) {
+        added.add(new Timeout<>(task, deadlineMillis));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Moves the wheel up to the given moment and returns the tasks whose deadline has passed.
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long lastTick = (nowMillis - startMillis) / tickMillis;
+        while (tick <= lastTick) {
+            transferAdded();
+            expire(buckets[(int) (tick & mask)], expired);
+            tick++;
+        }
+        size.addAndGet(-expired.size());
+        return expired;
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    private void transferAdded() {
+        Timeout<T> timeout;
+        while ((timeout = added.poll()) != null) {
+            long deadlineTick = Math.max((timeout.deadlineMillis - startMillis + tickMillis - 1) / tickMillis, tick);
+            timeout.rounds = (deadlineTick - tick) / buckets.length;
+            buckets[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private static <T> void expire(Queue<Timeout<T>> bucket, List<T> expired) {
+        Iterator<Timeout<T>> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout<T> timeout = iterator.next();
+            if (timeout.rounds <= 0) {
+                iterator.remove();
+                expired.add(timeout.task);
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    private static class Timeout<T> {
+        private final T task;
+        private final long deadlineMillis;
+        private long rounds;
+
+        private Timeout(T task, long deadlineMillis) {
+            this.task = task;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@ToString
+@Setter
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class BookingApprovalDtoIn {
+
+    @NotEmpty(message = "Следует указать решения по бронированиям.")
+    @Size(max = 1000, message = "За один запрос можно обработать не больше 1000 бронирований.")
+    private List<@NotNull @Valid BookingDecisionDto> decisions;
+}
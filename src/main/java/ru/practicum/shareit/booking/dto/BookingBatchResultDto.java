@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of one entry of a batch, by its position in the request: the created or decided booking, or the reason
+ * the entry failed.
+ */
+@ToString
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class BookingBatchResultDto {
+    private final int index;
+    private final BookingDtoFullOut booking;
+    private final String error;
+
+    public static BookingBatchResultDto created(int index, BookingDtoFullOut booking) {
+        return new BookingBatchResultDto(index, booking, null);
+    }
+
+    public static BookingBatchResultDto decided(int index, BookingDtoFullOut booking) {
+        return new BookingBatchResultDto(index, booking, null);
+    }
+
+    public static BookingBatchResultDto failed(int index, String error) {
+        return new BookingBatchResultDto(index, null, error);
+    }
+}
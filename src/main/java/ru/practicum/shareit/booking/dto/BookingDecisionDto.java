@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotNull;
+
+@ToString
+@Setter
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class BookingDecisionDto {
+
+    @NotNull(message = "Следует указать id бронирования.")
+    private Long bookingId;
+
+    @NotNull(message = "Следует указать решение - true/false.")
+    private Boolean approved;
+}
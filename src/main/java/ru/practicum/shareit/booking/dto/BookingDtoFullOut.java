@@ -6,6 +6,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import ru.practicum.shareit.booking.BookingStatus;
 
 import java.time.LocalDateTime;
 
@@ -22,6 +23,16 @@ public class BookingDtoFullOut {
     private UserInfo booker;
     private ItemInfo item;
 
+    public BookingDtoFullOut(long id,
+                             LocalDateTime start,
+                             LocalDateTime end,
+                             BookingStatus status,
+                             long bookerId,
+                             long itemId,
+                             String itemName) {
+        this(id, start, end, status.toString(), new UserInfo(bookerId), new ItemInfo(itemId, itemName));
+    }
+
     @Data
     public static class UserInfo {
         private final long id;
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@ToString
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class IntervalDto {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+}
@@ -1,11 +1,11 @@
 package ru.practicum.shareit.booking.model;
 
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import ru.practicum.shareit.booking.BookingPhase;
 import ru.practicum.shareit.booking.BookingStatus;
 
 import javax.persistence.Column;
@@ -15,7 +15,9 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Entity
@@ -23,7 +25,6 @@ import java.time.LocalDateTime;
 @ToString
 @Setter
 @Getter
-@AllArgsConstructor
 @EqualsAndHashCode
 @NoArgsConstructor
 public class Booking {
@@ -44,7 +45,50 @@ public class Booking {
     @Column(name = "booker_id")
     private long bookerId;
 
+    @Column(name = "owner_id")
+    private long ownerId;
+
     @Column(name = "status", columnDefinition = "enum('APPROVED','REJECTED','CANCELED','WAITING')")
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+
+    @Column(name = "created_date")
+    private LocalDateTime created;
+
+    /**
+     * Moved forward only by bulk updates of {@link ru.practicum.shareit.booking.BookingPhaseMaintainer},
+     * so an entity loaded before the move never writes a stale phase back.
+     */
+    @Column(name = "phase", updatable = false)
+    @Enumerated(EnumType.STRING)
+    private BookingPhase phase;
+
+    @Version
+    private long version;
+
+    public Booking(long id,
+                   LocalDateTime start,
+                   LocalDateTime end,
+                   long itemId,
+                   long bookerId,
+                   long ownerId,
+                   BookingStatus status) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.itemId = itemId;
+        this.bookerId = bookerId;
+        this.ownerId = ownerId;
+        this.status = status;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (created == null) {
+            created = LocalDateTime.now();
+        }
+        if (phase == null) {
+            phase = BookingPhase.of(start, end, LocalDateTime.now());
+        }
+    }
 }
@@ -1,9 +1,17 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.BookingExportFormat;
+import ru.practicum.shareit.booking.dto.BookingApprovalDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
 import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
+import ru.practicum.shareit.pagination.CursorPage;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface BookingService {
 
@@ -11,10 +19,24 @@ public interface BookingService {
 
     Collection<BookingDtoFullOut> getListOfBookingsBooker(long userId, String bookingState, int start, int size);
 
+    CursorPage<BookingDtoFullOut> getListOfBookingsBookerByCursor(long userId, String bookingState, String cursor, int size);
+
     Collection<BookingDtoFullOut> getListOfBookingsOwner(long ownerId, String bookingState, int start, int size);
 
+    CursorPage<BookingDtoFullOut> getListOfBookingsOwnerByCursor(long ownerId, String bookingState, String cursor, int size);
+
+    Optional<Long> countBookingsBooker(long userId, String bookingState);
+
+    Optional<Long> countBookingsOwner(long ownerId, String bookingState);
+
+    StreamingResponseBody exportBookings(long userId, String role, BookingExportFormat format);
+
     BookingDtoFullOut createBooking(BookingDtoIn bookingDto, long userId);
 
+    List<BookingBatchResultDto> createBookings(BookingBatchDtoIn batchDto, long userId);
+
     BookingDtoFullOut getApprovedBooking(long bookingId, long userId, String approved);
 
+    List<BookingBatchResultDto> approveBookings(BookingApprovalDtoIn approvalDto, long ownerId);
+
 }
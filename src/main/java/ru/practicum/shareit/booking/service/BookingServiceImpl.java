@@ -1,31 +1,62 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.BookingAvailability;
+import ru.practicum.shareit.booking.BookingBatchWriter;
+import ru.practicum.shareit.booking.BookingExportFormat;
+import ru.practicum.shareit.booking.BookingExporter;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingLifecycleEvent;
+import ru.practicum.shareit.booking.BookingLifecycleScheduler;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingPhaseMaintainer;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRole;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingApprovalDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.EnumBookingStateException;
 import ru.practicum.shareit.exception.InvalidValidationException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.pagination.TotalCounter;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -33,8 +64,15 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingExporter bookingExporter;
+    private final BookingBatchWriter bookingBatchWriter;
+    private final BookingAvailability bookingAvailability;
+    private final BookingLifecycleScheduler bookingLifecycleScheduler;
+    private final BookingPhaseMaintainer bookingPhaseMaintainer;
+    private final UserIdentityMap userIdentityMap;
+    private final TotalCounter<BookingTotalKey> bookingTotals = new TotalCounter<>();
 
     @Override
     public BookingDtoFullOut getBookingInfo(long userId, long bookingId) {
@@ -50,140 +88,252 @@ public class BookingServiceImpl implements BookingService {
         if (!(booking.get().getBookerId() == userId || item.get().getOwnerId() == userId)) {
             throw new ObjectNotFoundException("Проверить бронирование может только владелец вещи или бронирующий.");
         }
-        User owner = validateUser(booking.get().getBookerId());
+        User owner = userIdentityMap.require(booking.get().getBookerId());
         return BookingMapper.mapToBookingFullOut(booking.get(), owner, item.get());
     }
 
     @Override
     public Collection<BookingDtoFullOut> getListOfBookingsBooker(long bookerId, String state, int start, int size) {
         validateBookingState(state);
-        Pageable pageable = PageRequest.of(start / size, size);
-        BookingState bookingState = BookingState.valueOf(state);
-        User booker = validateUser(bookerId);
-        Collection<BookingDtoFullOut> listOfBookingReturn = new ArrayList<>();
-        Collection<Booking> listOfBooking = new ArrayList<>();
-        switch (bookingState) {
-            case ALL:
-                listOfBooking = bookingRepository.findByBookerIdOrderByStartDesc(bookerId, pageable).getContent();
-                break;
-            case CURRENT:
-                listOfBooking = bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                        bookerId,
-                        LocalDateTime.now(),
-                        LocalDateTime.now(),
-                        pageable).getContent();
-                break;
-            case PAST:
-                listOfBooking = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(
-                        bookerId,
-                        LocalDateTime.now(),
-                        pageable).getContent();
-                break;
-            case FUTURE:
-                listOfBooking = bookingRepository.findByBookerIdAndStartAfterOrderByStartDesc(
-                        bookerId,
-                        LocalDateTime.now(),
-                        pageable).getContent();
-                break;
-            case WAITING:
-                listOfBooking = bookingRepository.findByBookerIdAndStatusEqualsOrderByStartDesc(
-                        bookerId,
-                        BookingStatus.WAITING,
-                        pageable).getContent();
-                break;
-            case REJECTED:
-                listOfBooking = bookingRepository.findByBookerIdAndStatusEqualsOrderByStartDesc(
-                        bookerId,
-                        BookingStatus.REJECTED,
-                        pageable).getContent();
-                break;
-        }
-        for (Booking booking : listOfBooking) {
-            Optional<Item> item = itemRepository.findById(booking.getItemId());
-            item.ifPresent(value -> listOfBookingReturn.add(BookingMapper.mapToBookingFullOut(booking, booker, value)));
-        }
-        return listOfBookingReturn;
+        validateUser(bookerId);
+        return findBookingsBooker(
+                bookerId,
+                BookingState.valueOf(state),
+                SeekCursor.FIRST,
+                PageRequest.of(start / size, size));
+    }
+
+    @Override
+    public CursorPage<BookingDtoFullOut> getListOfBookingsBookerByCursor(long bookerId,
+                                                                         String state,
+                                                                         String cursor,
+                                                                         int size) {
+        validateBookingState(state);
+        SeekCursor seekCursor = SeekCursor.decode(cursor);
+        validateUser(bookerId);
+        List<BookingDtoFullOut> listOfBooking = findBookingsBooker(
+                bookerId,
+                BookingState.valueOf(state),
+                seekCursor,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(listOfBooking, size, booking -> new SeekCursor(booking.getStart(), booking.getId()));
     }
 
     @Override
     public Collection<BookingDtoFullOut> getListOfBookingsOwner(long ownerId, String state, int start, int size) {
         validateBookingState(state);
-        Pageable pageable = PageRequest.of(start / size, size);
-        BookingState bookingState = BookingState.valueOf(state);
-        validateUser(ownerId);
-        Collection<Item> itemsListByOwner = itemRepository.findAllByOwnerIdIsOrderById(
-                        ownerId,
-                        PageRequest.of(0, 1))
-                .getContent();
-        if (itemsListByOwner.isEmpty()) {
-            throw new ObjectNotFoundException("У пользователя ID = " + ownerId + " нет ни одной вещи.");
-        }
-        Collection<BookingDtoFullOut> listOfBookingReturn = new ArrayList<>();
-        Collection<Booking> listOfBooking = new ArrayList<>();
-        switch (bookingState) {
-            case ALL:
-                listOfBooking = bookingRepository.findAllBookingsForOwner(ownerId, pageable).getContent();
-                break;
-            case CURRENT:
-                listOfBooking = bookingRepository.findCurrentBookingsForOwner(
-                                ownerId,
-                                LocalDateTime.now(),
-                                pageable)
-                        .getContent();
-                break;
-            case PAST:
-                listOfBooking = bookingRepository.findPastBookingsForOwner(
-                                ownerId,
-                                LocalDateTime.now(),
-                                pageable)
-                        .getContent();
-                break;
-            case FUTURE:
-                listOfBooking = bookingRepository.findFutureBookingsForOwner(
-                                ownerId,
-                                LocalDateTime.now(),
-                                pageable)
-                        .getContent();
-                break;
-            case WAITING:
-                listOfBooking = bookingRepository.findStatusBookingsForOwner(
-                                ownerId,
-                                BookingStatus.WAITING.toString(),
-                                pageable)
-                        .getContent();
-                break;
-            case REJECTED:
-                listOfBooking = bookingRepository.findStatusBookingsForOwner(
-                                ownerId,
-                                BookingStatus.REJECTED.toString(),
-                                pageable)
-                        .getContent();
-                break;
+        validateOwner(ownerId);
+        return findBookingsOwner(
+                ownerId,
+                BookingState.valueOf(state),
+                SeekCursor.FIRST,
+                PageRequest.of(start / size, size));
+    }
+
+    @Override
+    public CursorPage<BookingDtoFullOut> getListOfBookingsOwnerByCursor(long ownerId,
+                                                                        String state,
+                                                                        String cursor,
+                                                                        int size) {
+        validateBookingState(state);
+        SeekCursor seekCursor = SeekCursor.decode(cursor);
+        validateOwner(ownerId);
+        List<BookingDtoFullOut> listOfBooking = findBookingsOwner(
+                ownerId,
+                BookingState.valueOf(state),
+                seekCursor,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(listOfBooking, size, booking -> new SeekCursor(booking.getStart(), booking.getId()));
+    }
+
+    @Override
+    public Optional<Long> countBookingsBooker(long bookerId, String state) {
+        validateBookingState(state);
+        validateUser(bookerId);
+        return countBookings(false, bookerId, BookingState.valueOf(state));
+    }
+
+    @Override
+    public Optional<Long> countBookingsOwner(long ownerId, String state) {
+        validateBookingState(state);
+        validateOwner(ownerId);
+        return countBookings(true, ownerId, BookingState.valueOf(state));
+    }
+
+    @Override
+    public StreamingResponseBody exportBookings(long userId, String role, BookingExportFormat format) {
+        BookingRole bookingRole;
+        try {
+            bookingRole = BookingRole.valueOf(role.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidValidationException("Неизвестная роль: " + role);
         }
-        for (Booking booking : listOfBooking) {
-            Optional<User> booker = userRepository.findById(booking.getBookerId());
-            Optional<Item> item = itemRepository.findById(booking.getItemId());
-            item.ifPresent(
-                    value -> booker.ifPresent(
-                            user -> listOfBookingReturn.add(BookingMapper.mapToBookingFullOut(booking, user, value))));
+        if (bookingRole == BookingRole.OWNER) {
+            validateOwner(userId);
+        } else {
+            validateUser(userId);
         }
-        return listOfBookingReturn;
+        return out -> bookingExporter.export(userId, bookingRole, format, out);
     }
 
     @Override
     @Transactional
     public BookingDtoFullOut createBooking(BookingDtoIn bookingDto, long bookerId) {
-        User booker = validateUser(bookerId);
+        User booker = userIdentityMap.require(bookerId);
         checkBookingParam(bookingDto);
         Item item = checkItem(bookingDto.getItemId());
-        if (item.getOwnerId() == bookerId) {
-            throw new ObjectNotFoundException("Владелец вещи не может забронировать собственную вещь.");
-        }
-        Booking newBooking = bookingRepository.save(BookingMapper.mapNewBookingFromDto(bookingDto, bookerId));
+        checkBooker(item, bookerId);
+        checkOverlap(bookingDto.getItemId(), bookingDto.getStart(), bookingDto.getEnd());
+        Booking newBooking = bookingRepository.save(
+                BookingMapper.mapNewBookingFromDto(bookingDto, bookerId, item.getOwnerId()));
+        changeBookingTotals(newBooking, item.getOwnerId(), null);
+        bookingAvailability.evict(item.getId());
+        bookingLifecycleScheduler.scheduleExpiry(newBooking);
         log.info("Добавлено новое бронирование = {}", newBooking);
         return BookingMapper.mapToBookingFullOut(newBooking, booker, item);
     }
 
+    /**
+     * Validates every entry on its own and inserts the valid ones together. All items are read by one query;
+     * an entry overlapping an approved booking or an earlier entry of the same item in the batch is rejected.
+     */
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> createBookings(BookingBatchDtoIn batchDto, long bookerId) {
+        User booker = userIdentityMap.require(bookerId);
+        List<BookingDtoIn> entries = batchDto.getBookings();
+        Map<Long, Item> items = itemRepository.findAllById(entries.stream()
+                        .map(BookingDtoIn::getItemId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        BookingBatchResultDto[] results = new BookingBatchResultDto[entries.size()];
+        Map<Long, List<Booking>> acceptedByItem = new HashMap<>();
+        List<Booking> newBookings = new ArrayList<>();
+        List<Integer> newIndexes = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            BookingDtoIn entry = entries.get(i);
+            try {
+                checkBookingParam(entry);
+                Item item = checkItem(entry.getItemId(), Optional.ofNullable(items.get(entry.getItemId())));
+                checkBooker(item, bookerId);
+                checkOverlap(item.getId(), entry.getStart(), entry.getEnd());
+                Booking newBooking = BookingMapper.mapNewBookingFromDto(entry, bookerId, item.getOwnerId());
+                List<Booking> accepted = acceptedByItem.computeIfAbsent(item.getId(), id -> new ArrayList<>());
+                checkBatchOverlap(accepted, newBooking);
+                accepted.add(newBooking);
+                newBookings.add(newBooking);
+                newIndexes.add(i);
+            } catch (ObjectNotFoundException | NotAvailableException e) {
+                results[i] = BookingBatchResultDto.failed(i, e.getMessage());
+            }
+        }
+        bookingBatchWriter.insert(newBookings);
+        for (int i = 0; i < newBookings.size(); i++) {
+            Booking newBooking = newBookings.get(i);
+            changeBookingTotals(newBooking, newBooking.getOwnerId(), null);
+            bookingLifecycleScheduler.scheduleExpiry(newBooking);
+            results[newIndexes.get(i)] = BookingBatchResultDto.created(newIndexes.get(i),
+                    BookingMapper.mapToBookingFullOut(newBooking, booker, items.get(newBooking.getItemId())));
+        }
+        acceptedByItem.keySet().forEach(bookingAvailability::evict);
+        log.info("Пакет бронирований пользователя ID = {}: добавлено {} из {}.",
+                bookerId, newBookings.size(), entries.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Decides many WAITING bookings at once. Bookings and items are read by one query each, all items are locked
+     * together and statuses are rechecked by one query; the changed bookings are flushed as one JDBC batch with
+     * version checks. An approval overlapping an approved booking or an earlier approval of the batch is rejected.
+     * A conflict at flush still fails the whole batch with 409: the item locks only hold within this instance, so
+     * another instance or the expiry of a request may still change a row between the recheck and the flush. The
+     * failed flush marks the transaction for rollback and leaves the session unusable, and the JDBC batch does not
+     * tell which row conflicted, so no entry can be kept; the caller retries the batch.
+     */
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> approveBookings(BookingApprovalDtoIn approvalDto, long ownerId) {
+        validateUser(ownerId);
+        List<BookingDecisionDto> decisions = approvalDto.getDecisions();
+        Map<Long, Booking> bookings = bookingRepository.findAllById(decisions.stream()
+                        .map(BookingDecisionDto::getBookingId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Map<Long, Item> items = itemRepository.findAllById(bookings.values().stream()
+                        .map(Booking::getItemId)
+                        .collect(Collectors.toSet())).stream()
+                .filter(item -> item.getOwnerId() == ownerId)
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        bookingIntervalIndex.lockItems(items.keySet());
+        Set<Long> waiting = bookings.isEmpty() ? Set.of()
+                : new HashSet<>(bookingRepository.findIdsByIdInAndStatus(bookings.keySet(), BookingStatus.WAITING));
+        BookingBatchResultDto[] results = new BookingBatchResultDto[decisions.size()];
+        Set<Long> decided = new HashSet<>();
+        Map<Long, List<Booking>> approvedByItem = new HashMap<>();
+        List<Booking> changed = new ArrayList<>();
+        List<Integer> changedIndexes = new ArrayList<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecisionDto decision = decisions.get(i);
+            try {
+                Booking booking = bookings.get(decision.getBookingId());
+                if (booking == null) {
+                    throw new ObjectNotFoundException("Запроса на бронирование с ID = " + decision.getBookingId() +
+                            " не существует.");
+                }
+                if (!items.containsKey(booking.getItemId())) {
+                    throw new ObjectNotFoundException("Одобрить бронирование может только владелец вещи");
+                }
+                if (!decided.add(booking.getId())) {
+                    throw new NotAvailableException("Бронирование с ID = " + booking.getId() +
+                            " указано в пакете несколько раз.");
+                }
+                if (!waiting.contains(booking.getId())) {
+                    throw new NotAvailableException("Заявка на бронирование уже обработана.");
+                }
+                if (decision.getApproved()) {
+                    checkOverlap(booking.getItemId(), booking.getStart(), booking.getEnd());
+                    List<Booking> approved = approvedByItem.computeIfAbsent(booking.getItemId(),
+                            id -> new ArrayList<>());
+                    checkBatchOverlap(approved, booking);
+                    approved.add(booking);
+                    booking.setStatus(BookingStatus.APPROVED);
+                } else {
+                    booking.setStatus(BookingStatus.REJECTED);
+                }
+                changed.add(booking);
+                changedIndexes.add(i);
+            } catch (ObjectNotFoundException | NotAvailableException e) {
+                results[i] = BookingBatchResultDto.failed(i, e.getMessage());
+            }
+        }
+        try {
+            bookingRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ConflictException("Заявки на бронирование из пакета уже изменены.");
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Вещь из пакета уже забронирована на эти даты.");
+        }
+        for (int i = 0; i < changed.size(); i++) {
+            Booking booking = changed.get(i);
+            if (booking.getStatus() == BookingStatus.APPROVED) {
+                bookingIntervalIndex.add(booking);
+                bookingLifecycleScheduler.scheduleLifecycle(booking);
+            } else {
+                bookingIntervalIndex.remove(booking);
+            }
+            changeBookingTotals(booking, ownerId, BookingStatus.WAITING);
+            results[changedIndexes.get(i)] = BookingBatchResultDto.decided(changedIndexes.get(i),
+                    BookingMapper.mapToBookingFullOut(booking, userIdentityMap.require(booking.getBookerId()),
+                            items.get(booking.getItemId())));
+        }
+        changed.stream()
+                .map(Booking::getItemId)
+                .distinct()
+                .forEach(bookingAvailability::evict);
+        log.info("Пакет решений владельца ID = {}: обработано {} из {}.", ownerId, changed.size(), decisions.size());
+        return Arrays.asList(results);
+    }
+
     @Override
     @Transactional
     public BookingDtoFullOut getApprovedBooking(long bookingId, long ownerId, String approved) {
@@ -192,7 +342,7 @@ public class BookingServiceImpl implements BookingService {
             throw new ObjectNotFoundException("Запроса на бронирование с ID = " + bookingId + " не существоет.");
         }
         validateUser(ownerId);
-        User booker = validateUser(booking.get().getBookerId());
+        User booker = userIdentityMap.require(booking.get().getBookerId());
         Item item = checkItem(booking.get().getItemId());
         if (item.getOwnerId() != ownerId) {
             throw new ObjectNotFoundException("Одобрить бронирование может только владелец вещи");
@@ -200,8 +350,13 @@ public class BookingServiceImpl implements BookingService {
         if (booking.get().getStatus() != BookingStatus.WAITING) {
             throw new NotAvailableException("Заявка на бронирование уже обработана.");
         }
+        bookingIntervalIndex.lockItem(item.getId());
+        if (bookingRepository.findStatusById(bookingId) != BookingStatus.WAITING) {
+            throw new NotAvailableException("Заявка на бронирование уже обработана.");
+        }
         switch (approved) {
             case "true":
+                checkOverlap(item.getId(), booking.get().getStart(), booking.get().getEnd());
                 booking.get().setStatus(BookingStatus.APPROVED);
                 break;
             case "false":
@@ -210,16 +365,198 @@ public class BookingServiceImpl implements BookingService {
             default:
                 throw new InvalidValidationException("Значение должно быть true/false");
         }
-        Booking updateBooking = bookingRepository.save(booking.get());
+        Booking updateBooking;
+        try {
+            updateBooking = bookingRepository.saveAndFlush(booking.get());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ConflictException("Заявка на бронирование с ID = " + bookingId + " уже изменена.");
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Вещь с ID = " + item.getId() + " уже забронирована на эти даты.");
+        }
+        if (updateBooking.getStatus() == BookingStatus.APPROVED) {
+            bookingIntervalIndex.add(updateBooking);
+            bookingLifecycleScheduler.scheduleLifecycle(updateBooking);
+        } else {
+            bookingIntervalIndex.remove(updateBooking);
+        }
+        changeBookingTotals(updateBooking, item.getOwnerId(), BookingStatus.WAITING);
+        bookingAvailability.evict(item.getId());
         return BookingMapper.mapToBookingFullOut(updateBooking, booker, item);
     }
 
-    private User validateUser(long userId) {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
-            throw new ObjectNotFoundException("Пользователя с ID = " + userId + " не существует.");
+    @EventListener
+    public void onBookingLifecycleEvent(BookingLifecycleEvent event) {
+        if (event.getType() == BookingLifecycleEvent.Type.EXPIRED) {
+            Booking booking = event.getBooking();
+            changeBookingTotals(booking, booking.getOwnerId(), BookingStatus.WAITING);
+            bookingAvailability.evict(booking.getItemId());
         }
-        return user.get();
+    }
+
+    private List<BookingDtoFullOut> findBookingsBooker(long bookerId,
+                                                       BookingState bookingState,
+                                                       SeekCursor cursor,
+                                                       Pageable pageable) {
+        List<BookingDtoFullOut> listOfBooking = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        switch (bookingState) {
+            case ALL:
+                listOfBooking = bookingRepository.findAllDtoByBooker(
+                        bookerId,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case CURRENT:
+                listOfBooking = bookingRepository.findCurrentDtoByBooker(
+                        bookerId,
+                        now,
+                        bookingPhaseMaintainer.recheckFromLastRun(now),
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case PAST:
+                listOfBooking = bookingRepository.findPastDtoByBooker(
+                        bookerId,
+                        now,
+                        bookingPhaseMaintainer.recheckFromLastRun(now),
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case FUTURE:
+                listOfBooking = bookingRepository.findFutureDtoByBooker(
+                        bookerId,
+                        now,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case WAITING:
+                listOfBooking = bookingRepository.findStatusDtoByBooker(
+                        bookerId,
+                        BookingStatus.WAITING,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case REJECTED:
+                listOfBooking = bookingRepository.findStatusDtoByBooker(
+                        bookerId,
+                        BookingStatus.REJECTED,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+        }
+        return listOfBooking;
+    }
+
+    private List<BookingDtoFullOut> findBookingsOwner(long ownerId,
+                                                      BookingState bookingState,
+                                                      SeekCursor cursor,
+                                                      Pageable pageable) {
+        List<BookingDtoFullOut> listOfBooking = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        switch (bookingState) {
+            case ALL:
+                listOfBooking = bookingRepository.findAllDtoByOwner(
+                        ownerId,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case CURRENT:
+                listOfBooking = bookingRepository.findCurrentDtoByOwner(
+                        ownerId,
+                        now,
+                        bookingPhaseMaintainer.recheckFromLastRun(now),
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case PAST:
+                listOfBooking = bookingRepository.findPastDtoByOwner(
+                        ownerId,
+                        now,
+                        bookingPhaseMaintainer.recheckFromLastRun(now),
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case FUTURE:
+                listOfBooking = bookingRepository.findFutureDtoByOwner(
+                        ownerId,
+                        now,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case WAITING:
+                listOfBooking = bookingRepository.findStatusDtoByOwner(
+                        ownerId,
+                        BookingStatus.WAITING,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+            case REJECTED:
+                listOfBooking = bookingRepository.findStatusDtoByOwner(
+                        ownerId,
+                        BookingStatus.REJECTED,
+                        cursor.getTime(),
+                        cursor.getId(),
+                        pageable);
+                break;
+        }
+        return listOfBooking;
+    }
+
+    /**
+     * CURRENT, PAST and FUTURE move with the clock and have no maintained total.
+     */
+    private Optional<Long> countBookings(boolean owner, long userId, BookingState bookingState) {
+        switch (bookingState) {
+            case ALL:
+                long total = 0;
+                for (BookingStatus status : BookingStatus.values()) {
+                    total += countBookings(owner, userId, status);
+                }
+                return Optional.of(total);
+            case WAITING:
+                return Optional.of(countBookings(owner, userId, BookingStatus.WAITING));
+            case REJECTED:
+                return Optional.of(countBookings(owner, userId, BookingStatus.REJECTED));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private long countBookings(boolean owner, long userId, BookingStatus status) {
+        return bookingTotals.get(new BookingTotalKey(owner, userId, status), key -> key.isOwner()
+                ? bookingRepository.countByOwnerIdAndStatus(key.getUserId(), key.getStatus())
+                : bookingRepository.countByBookerIdAndStatus(key.getUserId(), key.getStatus()));
+    }
+
+    private void changeBookingTotals(Booking booking, long ownerId, BookingStatus previousStatus) {
+        if (previousStatus != null) {
+            bookingTotals.add(new BookingTotalKey(false, booking.getBookerId(), previousStatus), -1);
+            bookingTotals.add(new BookingTotalKey(true, ownerId, previousStatus), -1);
+        }
+        bookingTotals.add(new BookingTotalKey(false, booking.getBookerId(), booking.getStatus()), 1);
+        bookingTotals.add(new BookingTotalKey(true, ownerId, booking.getStatus()), 1);
+    }
+
+    private void validateOwner(long ownerId) {
+        validateUser(ownerId);
+        if (!itemRepository.existsByOwnerId(ownerId)) {
+            throw new ObjectNotFoundException("У пользователя ID = " + ownerId + " нет ни одной вещи.");
+        }
+    }
+
+    private void validateUser(long userId) {
+        userIdentityMap.requireExists(userId);
     }
 
     private void validateBookingState(String state) {
@@ -231,7 +568,10 @@ public class BookingServiceImpl implements BookingService {
     }
 
     private Item checkItem(long itemId) {
-        Optional<Item> item = itemRepository.findById(itemId);
+        return checkItem(itemId, itemRepository.findById(itemId));
+    }
+
+    private Item checkItem(long itemId, Optional<Item> item) {
         if (item.isEmpty()) {
             throw new ObjectNotFoundException("Вещи с ID = " + itemId + " не существует.");
         }
@@ -241,10 +581,38 @@ public class BookingServiceImpl implements BookingService {
         return item.get();
     }
 
+    private void checkBooker(Item item, long bookerId) {
+        if (item.getOwnerId() == bookerId) {
+            throw new ObjectNotFoundException("Владелец вещи не может забронировать собственную вещь.");
+        }
+    }
+
+    private void checkBatchOverlap(List<Booking> accepted, Booking booking) {
+        for (Booking other : accepted) {
+            if (booking.getStart().isBefore(other.getEnd()) && other.getStart().isBefore(booking.getEnd())) {
+                throw new NotAvailableException("Бронирование вещи с ID = " + booking.getItemId() +
+                        " пересекается с другим бронированием этой вещи в том же пакете.");
+            }
+        }
+    }
+
+    private void checkOverlap(long itemId, LocalDateTime start, LocalDateTime end) {
+        if (bookingIntervalIndex.hasOverlap(itemId, start, end)) {
+            throw new NotAvailableException("Вещь с ID = " + itemId + " уже забронирована на эти даты.");
+        }
+    }
+
     private void checkBookingParam(BookingDtoIn bookingDto) {
-        if (bookingDto.getEnd().isBefore(bookingDto.getStart())) {
-            throw new NotAvailableException("Дата окончания бронирования не может быть раньше даты начала.");
+        if (!bookingDto.getEnd().isAfter(bookingDto.getStart())) {
+            throw new NotAvailableException("Дата окончания бронирования должна быть позже даты начала.");
         }
     }
 
+    @Value
+    private static class BookingTotalKey {
+        boolean owner;
+        long userId;
+        BookingStatus status;
+    }
+
 }
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.booking.dto.IntervalDto;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through caches of User and Item entities by id, filled and evicted by the repositories, and of busy booking
+ * windows by item id, filled and evicted by BookingAvailability. All of them are {@link EntityCache}s, so a load
+ * that raced an eviction is not stored. Puts and evictions are applied after commit, so a rolled back update never
+ * reaches the cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+    public static final String ITEM_BUSY_INTERVALS = "itemBusyIntervals";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${shareit.cache.maximum-size:10000}") long maximumSize,
+                                     @Value("${shareit.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new EntityCache<>(USERS, caffeine.build(), User.class, UserMapper::copy),
+                new EntityCache<>(ITEMS, caffeine.build(), Item.class, ItemMapper::copy),
+                new EntityCache<>(ITEM_BUSY_INTERVALS, caffeine.build(), intervalListType(),
+                        UnaryOperator.identity())));
+        cacheManager.initializeCaches();
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    /**
+     * Busy windows are immutable lists of immutable intervals, so they are cached as they are.
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<List<IntervalDto>> intervalListType() {
+        return (Class<List<IntervalDto>>) (Class<?>) List.class;
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<EntityCache<?>> entityCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+    }
+
+}
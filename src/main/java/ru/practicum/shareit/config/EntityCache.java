@@ -0,0 +1,128 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache of entities by id that stores and hands out detached copies, so no instance is shared between sessions
+ * or threads; immutable values are cached with the identity as copier. A value loaded on a miss is stored only if its key was not evicted after the load began; otherwise
+ * a reader that loaded the row before a writer committed could store it after the writer's eviction and keep
+ * the stale row until expiry. Evictions are recorded per stripe of keys, so a load may at worst be left
+ * uncached because another key of its stripe was evicted. A value loaded inside a transaction is stored after
+ * commit. Used with {@code @Cacheable(sync = true)}, which routes misses through {@link #get(Object, Callable)}.
+ */
+public class EntityCache<V> implements Cache {
+    private static final int STRIPES = 1024;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, V> values;
+    private final Class<V> type;
+    private final UnaryOperator<V> copier;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray evictedAt = new AtomicLongArray(STRIPES);
+    private volatile long clearedAt;
+
+    public EntityCache(String name,
+                       com.github.benmanes.caffeine.cache.Cache<Object, V> values,
+                       Class<V> type,
+                       UnaryOperator<V> copier) {
+        this.name = name;
+        this.values = values;
+        this.type = type;
+        this.copier = copier;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, V> getNativeCache() {
+        return values;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        V value = values.getIfPresent(key);
+        return value == null ? null : new SimpleValueWrapper(copier.apply(value));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        V value = values.getIfPresent(key);
+        return value == null ? null : type.cast(copier.apply(value));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        V cached = values.getIfPresent(key);
+        if (cached != null) {
+            return (T) copier.apply(cached);
+        }
+        long stamp = sequence.get();
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (loaded != null) {
+            V copy = copier.apply(type.cast(loaded));
+            afterCommit(() -> putIfNotEvictedSince(key, copy, stamp));
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value != null) {
+            values.put(key, copier.apply(type.cast(value)));
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        values.asMap().compute(key, (k, current) -> {
+            evictedAt.set(stripe(k), sequence.incrementAndGet());
+            return null;
+        });
+    }
+
+    @Override
+    public void clear() {
+        clearedAt = sequence.incrementAndGet();
+        values.invalidateAll();
+    }
+
+    private void putIfNotEvictedSince(Object key, V value, long stamp) {
+        values.asMap().compute(key, (k, current) ->
+                evictedAt.get(stripe(k)) > stamp || clearedAt > stamp ? current : value);
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), STRIPES);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
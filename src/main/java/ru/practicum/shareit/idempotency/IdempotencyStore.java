@@ -0,0 +1,127 @@
+package ru.practicum.shareit.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.InvalidValidationException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Responses of create requests by caller and Idempotency-Key header, so that a retried request gets the first
+ * response instead of creating a second entity. A duplicate that arrives while the first request is still running
+ * waits for its result, but no longer than the configured wait timeout. A failed request is forgotten and may be
+ * retried with the same key. Requests still running are held apart from the bounded cache of responses, so size
+ * eviction can never drop a key while its first request is in flight.
+ */
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<Key, Entry> completed;
+    private final ConcurrentMap<Key, Entry> inFlight = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+
+    public IdempotencyStore(@Value("${shareit.idempotency.maximum-size:100000}") long maximumSize,
+                            @Value("${shareit.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${shareit.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * Runs the action once per caller, operation and key; the request must be equal to the one first sent with
+     * the key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(long userId, String operation, String idempotencyKey, Object request, Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidValidationException("Заголовок " + HEADER + " должен быть непустым и не длиннее " +
+                    MAX_KEY_LENGTH + " символов.");
+        }
+        Key key = new Key(userId, operation, idempotencyKey);
+        Entry done = completed.getIfPresent(key);
+        if (done != null) {
+            return (T) responseOf(done, idempotencyKey, request);
+        }
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry first = inFlight.putIfAbsent(key, entry);
+        if (first != null) {
+            return (T) responseOf(first, idempotencyKey, request);
+        }
+        done = completed.getIfPresent(key);
+        if (done != null) {
+            inFlight.remove(key, entry);
+            entry.getResponse().complete(done.getResponse().join());
+            return (T) responseOf(done, idempotencyKey, request);
+        }
+        try {
+            T response = action.get();
+            entry.getResponse().complete(response);
+            completed.put(key, entry);
+            inFlight.remove(key, entry);
+            return response;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, entry);
+            entry.getResponse().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object responseOf(Entry entry, String idempotencyKey, Object request) {
+        if (!entry.getRequest().equals(request)) {
+            throw new ConflictException("Ключ " + idempotencyKey + " уже использован для другого запроса.");
+        }
+        try {
+            return entry.getResponse().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ConflictException("Запрос с ключом " + idempotencyKey + " ещё выполняется, повторите позже.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Запрос с ключом " + idempotencyKey + " ещё выполняется, повторите позже.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final long userId;
+        private final String operation;
+        private final String idempotencyKey;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry {
+        private final Object request;
+        private final CompletableFuture<Object> response;
+    }
+
+}
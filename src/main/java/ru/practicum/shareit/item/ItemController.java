@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,76 +14,114 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.booking.dto.IntervalDto;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.CommentDtoIn;
 import ru.practicum.shareit.item.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDtoIn;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoAbstract;
 import ru.practicum.shareit.item.dto.ItemDtoForBooker;
 import ru.practicum.shareit.item.dto.ItemDtoForOwner;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.user.SharerUser;
 
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping("/items")
 @Validated
 public class ItemController {
     private final ItemService itemService;
+    private final IdempotencyStore idempotencyStore;
 
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, IdempotencyStore idempotencyStore) {
         this.itemService = itemService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @GetMapping
-    public Collection<ItemDtoForOwner> getAllItems(
-            @RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<Collection<ItemDtoForOwner>> getAllItems(
+            SharerUser user,
             @RequestParam(value = "from", defaultValue = "0", required = false) @PositiveOrZero int start,
-            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size) {
-        return itemService.getAllItems(userId, start, size);
+            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size,
+            @RequestParam(value = "total", defaultValue = "false", required = false) boolean total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (total) {
+            response.header(CursorPage.TOTAL_COUNT_HEADER, String.valueOf(itemService.countItemsOfOwner(user.getId())));
+        }
+        return response.body(itemService.getAllItems(user.getId(), start, size));
     }
 
     @GetMapping("/{itemId}")
-    public ItemDtoAbstract getItemById(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ItemDtoAbstract getItemById(SharerUser user,
                                        @PathVariable long itemId) {
-        return itemService.getItemById(userId, itemId);
+        return itemService.getItemById(user.getId(), itemId);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<IntervalDto> getItemAvailability(
+            SharerUser user,
+            @PathVariable long itemId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getItemAvailability(user.getId(), itemId, from, to);
+    }
+
+    @PostMapping("/availability")
+    public List<Long> getAvailableItems(SharerUser user,
+                                        @Validated @RequestBody ItemAvailabilityDtoIn availabilityDto) {
+        return itemService.getAvailableItems(user.getId(), availabilityDto);
     }
 
     @GetMapping("/search")
     public Collection<ItemDtoForBooker> searchItemByName(
-            @RequestHeader("X-Sharer-User-Id") long userId,
+            SharerUser user,
             @RequestParam(defaultValue = " ", required = false) String text,
             @RequestParam(value = "from", defaultValue = "0", required = false) @PositiveOrZero int start,
-            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size) {
-        return itemService.searchItemByName(userId, text, start, size);
+            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size,
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime availableFrom,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime availableTo) {
+        if (availableFrom == null && availableTo == null) {
+            return itemService.searchItemByName(user.getId(), text, start, size);
+        }
+        return itemService.searchAvailableItemByName(user.getId(), text, availableFrom, availableTo, start, size);
     }
 
     @PostMapping
-    public ItemDto createItem(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ItemDto createItem(SharerUser user,
+                              @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
                               @Validated({CreateItem.class}) @RequestBody ItemDto itemDto) {
-        return itemService.createItem(userId, itemDto);
+        return idempotencyStore.execute(user.getId(), "POST /items", idempotencyKey, itemDto,
+                () -> itemService.createItem(user.getId(), itemDto));
     }
 
     @PostMapping("/{itemId}/comment")
     public CommentDtoOut createComment(@PathVariable long itemId,
-                                       @RequestHeader("X-Sharer-User-Id") long userId,
+                                       SharerUser user,
                                        @Validated @RequestBody CommentDtoIn commentDtoIn) {
-        return itemService.createComment(itemId, userId, commentDtoIn);
+        return itemService.createComment(itemId, user.getId(), commentDtoIn);
     }
 
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@PathVariable long itemId,
-                              @RequestHeader("X-Sharer-User-Id") long userId,
+                              SharerUser user,
                               @RequestBody ItemDto itemDto) {
-        return itemService.updateItem(itemId, userId, itemDto);
+        return itemService.updateItem(itemId, user.getId(), itemDto);
     }
 
     @DeleteMapping("/{itemId}")
     public void deleteItem(@PathVariable long itemId,
-                           @RequestHeader("X-Sharer-User-Id") long userId) {
-        itemService.deleteItem(itemId, userId);
+                           SharerUser user) {
+        itemService.deleteItem(itemId, user.getId());
     }
 
 }
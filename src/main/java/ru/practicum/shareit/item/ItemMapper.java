@@ -92,17 +92,28 @@ public class ItemMapper {
                 itemDto.getRequestId());
     }
 
+    public static Item copy(Item item) {
+        return new Item(
+                item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                item.getOwnerId(),
+                item.getRequestId());
+    }
+
     public static Item mapUpdateItemFromItemDto(Item item, ItemDto itemDto) {
+        Item updateItem = copy(item);
         if (itemDto.getName() != null) {
-            item.setName(itemDto.getName());
+            updateItem.setName(itemDto.getName());
         }
         if (itemDto.getDescription() != null) {
-            item.setDescription(itemDto.getDescription());
+            updateItem.setDescription(itemDto.getDescription());
         }
         if (itemDto.getAvailable() != null) {
-            item.setAvailable(itemDto.getAvailable());
+            updateItem.setAvailable(itemDto.getAvailable());
         }
-        return item;
+        return updateItem;
     }
 
 }
@@ -0,0 +1,237 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Trigram inverted index over name and description of available items.
+ * Matches are the same as for upper(name) like upper('%text%') or upper(description) like upper('%text%'),
+ * ordered by item id.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int GRAM = 3;
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, String> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.item-search.mode:LIKE}") ItemSearchMode searchMode) {
+        this.itemRepository = itemRepository;
+        this.enabled = searchMode == ItemSearchMode.INDEX;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long lastId = 0;
+        List<Item> batch;
+        do {
+            batch = itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderById(
+                    lastId,
+                    PageRequest.of(0, LOAD_BATCH_SIZE));
+            batch.forEach(this::index);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        log.info("Поисковый индекс вещей загружен: {} вещей, {} триграмм.", documents.size(), postings.size());
+    }
+
+    public List<Long> search(String text, int from, int size) {
+        return search(text, from, size, id -> true);
+    }
+
+    /**
+     * Same as search, but skips ids rejected by the filter before counting the offset, so pages stay contiguous.
+     */
+    public List<Long> search(String text, int from, int size, LongPredicate filter) {
+        String query = text.toUpperCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            long[] candidates = query.length() < GRAM ? allIds() : candidates(query);
+            List<Long> page = new ArrayList<>(size);
+            int skipped = 0;
+            for (long id : candidates) {
+                if (page.size() == size) {
+                    break;
+                }
+                if (documents.get(id).contains(query) && filter.test(id) && skipped++ >= from) {
+                    page.add(id);
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Item item) {
+        if (enabled) {
+            afterCommit(() -> index(item));
+        }
+    }
+
+    public void remove(long itemId) {
+        if (enabled) {
+            afterCommit(() -> unindex(itemId));
+        }
+    }
+
+    private void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            unindex(item.getId());
+            if (!Boolean.TRUE.equals(item.getAvailable())) {
+                return;
+            }
+            String document = (item.getName() + FIELD_SEPARATOR + item.getDescription()).toUpperCase(Locale.ROOT);
+            documents.put(item.getId(), document);
+            for (long gram : grams(document)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(item.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(long itemId) {
+        lock.writeLock().lock();
+        try {
+            String document = documents.remove(itemId);
+            if (document == null) {
+                return;
+            }
+            for (long gram : grams(document)) {
+                Postings list = postings.get(gram);
+                if (list != null && list.remove(itemId) && list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long[] candidates(String query) {
+        List<Postings> lists = new ArrayList<>();
+        for (long gram : grams(query)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((first, second) -> Integer.compare(first.size, second.size));
+        long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int length = result.length;
+        for (int i = 1; i < lists.size() && length > 0; i++) {
+            length = lists.get(i).retainAll(result, length);
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    private long[] allIds() {
+        return documents.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Sorted item ids sharing one trigram.
+     */
+    static class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Keeps in the first length elements of sorted candidates only ids of this list, returns the new length.
+         */
+        int retainAll(long[] candidates, int length) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < length; i++) {
+                int position = Arrays.binarySearch(ids, from, size, candidates[i]);
+                if (position >= 0) {
+                    candidates[kept++] = candidates[i];
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            return kept;
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ToString
+@Setter
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class ItemAvailabilityDtoIn {
+
+    @NotEmpty(message = "Следует указать id вещей.")
+    @Size(max = 1000, message = "За один запрос можно проверить не больше 1000 вещей.")
+    private List<@NotNull Long> itemIds;
+
+    @NotNull(message = "Следует указать дату начала бронирования.")
+    private LocalDateTime start;
+
+    @NotNull(message = "Следует указать дату конца бронирования.")
+    private LocalDateTime end;
+}
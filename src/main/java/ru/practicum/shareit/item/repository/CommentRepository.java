@@ -4,8 +4,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.item.model.Comment;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     Collection<Comment> findAllByItemId(long itemId);
+
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds);
 }
@@ -1,24 +1,140 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.config.CacheConfig;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    Page<Item> findAllByOwnerIdIsOrderById(Long userId, Pageable pageable);
+    /**
+     * Every write method evicts, so no path can leave a stale Item cached; bulk methods clear the whole cache.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ITEMS, sync = true)
+    Optional<Item> findById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#p0.id")
+    <S extends Item> S save(S item);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#p0.id")
+    <S extends Item> S saveAndFlush(S item);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    <S extends Item> List<S> saveAll(Iterable<S> items);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    <S extends Item> List<S> saveAllAndFlush(Iterable<S> items);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#p0.id")
+    void delete(Item item);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    void deleteAll(Iterable<? extends Item> items);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    void deleteAllInBatch(Iterable<Item> items);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)
+    void deleteAllInBatch();
+
+    Slice<Item> findAllByOwnerIdIsOrderById(Long userId, Pageable pageable);
+
+    long countByOwnerId(long ownerId);
+
+    boolean existsByOwnerId(long ownerId);
 
     @Query("select new Item(it.id, it.name, it.description, it.available, it.ownerId, it.requestId) " +
             "from Item as it " +
             "where it.available = true " +
             "and ( upper(it.name) like upper(concat('%', ?1, '%')) " +
             "or upper(it.description) like upper(concat('%', ?1, '%'))) ")
-    Page<Item> findAllItemByText(String text, Pageable pageable);
+    Slice<Item> findAllItemByText(String text, Pageable pageable);
+
+    @Query("select new Item(it.id, it.name, it.description, it.available, it.ownerId, it.requestId) " +
+            "from Item as it " +
+            "where it.available = true " +
+            "and ( upper(it.name) like upper(concat('%', ?1, '%')) " +
+            "or upper(it.description) like upper(concat('%', ?1, '%'))) " +
+            "and not exists (select b.id from Booking as b " +
+            "where b.itemId = it.id and b.status = ?2 and b.end > ?3 and b.start < ?4) " +
+            "order by it.id")
+    Slice<Item> findAllFreeItemByText(String text,
+                                      BookingStatus busyStatus,
+                                      LocalDateTime start,
+                                      LocalDateTime end,
+                                      Pageable pageable);
+
+    /**
+     * Same matches as {@link #findAllItemByText}, served by the trigram indexes; the tsvector only ranks them.
+     * A word query over the tsvector would also match words apart from each other, which LIKE does not.
+     */
+    @Query(value = "select i.* " +
+            "from items as i " +
+            "where i.available = true " +
+            "and (upper(i.item_name) like upper(concat('%', ?1, '%')) " +
+            "or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "order by ts_rank(i.search_vector, plainto_tsquery('simple', ?1)) desc, i.id", nativeQuery = true)
+    List<Item> findAllItemByTextRanked(String text, Pageable pageable);
+
+    @Query(value = "select i.* " +
+            "from items as i " +
+            "where i.available = true " +
+            "and (upper(i.item_name) like upper(concat('%', ?1, '%')) " +
+            "or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "and not exists (select b.id from bookings as b " +
+            "where b.item_id = i.id and b.status = 'APPROVED' and b.end_date > ?2 and b.start_date < ?3) " +
+            "order by ts_rank(i.search_vector, plainto_tsquery('simple', ?1)) desc, i.id", nativeQuery = true)
+    List<Item> findAllFreeItemByTextRanked(String text, LocalDateTime start, LocalDateTime end, Pageable pageable);
 
     Collection<Item> findAllByRequestId(Long requestId);
 
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    List<Item> findAllByAvailableTrueAndIdGreaterThanOrderById(long id, Pageable pageable);
+
+    @Query("select it.id " +
+            "from Item as it " +
+            "where it.id in ?1 and it.available = true " +
+            "and not exists (select b.id from Booking as b " +
+            "where b.itemId = it.id and b.status in ?2 and b.end > ?3 and b.start < ?4)")
+    List<Long> findFreeItemIds(Collection<Long> itemIds,
+                               Collection<BookingStatus> busyStatuses,
+                               LocalDateTime start,
+                               LocalDateTime end);
+
 }
\ No newline at end of file
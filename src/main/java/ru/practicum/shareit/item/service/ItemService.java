@@ -1,26 +1,43 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.booking.dto.IntervalDto;
 import ru.practicum.shareit.item.dto.CommentDtoIn;
 import ru.practicum.shareit.item.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDtoIn;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoAbstract;
 import ru.practicum.shareit.item.dto.ItemDtoForBooker;
 import ru.practicum.shareit.item.dto.ItemDtoForOwner;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 public interface ItemService {
 
     Collection<ItemDtoForOwner> getAllItems(long userId, int start, int size);
 
+    long countItemsOfOwner(long userId);
+
     ItemDtoAbstract getItemById(long userId, long itemId);
 
+    List<IntervalDto> getItemAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to);
+
+    List<Long> getAvailableItems(long userId, ItemAvailabilityDtoIn availabilityDto);
+
     ItemDto createItem(long userId, ItemDto itemDto);
 
     ItemDto updateItem(long itemId, long userId, ItemDto itemDto);
 
     Collection<ItemDtoForBooker> searchItemByName(long userId, String text, int start, int size);
 
+    Collection<ItemDtoForBooker> searchAvailableItemByName(long userId,
+                                                           String text,
+                                                           LocalDateTime availableFrom,
+                                                           LocalDateTime availableTo,
+                                                           int start,
+                                                           int size);
+
     void deleteItem(long itemId, long userId);
 
     CommentDtoOut createComment(long itemId, long userId, CommentDtoIn commentDtoIn);
@@ -2,17 +2,25 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingAvailability;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.IntervalDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.InvalidValidationException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemSearchMode;
 import ru.practicum.shareit.item.dto.CommentDtoIn;
 import ru.practicum.shareit.item.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDtoIn;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoAbstract;
 import ru.practicum.shareit.item.dto.ItemDtoForBooker;
@@ -21,13 +29,24 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.TotalCounter;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -37,42 +56,48 @@ public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final BookingAvailability bookingAvailability;
+    private final BookingIntervalIndex bookingIntervalIndex;
     private final CommentRepository commentRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final UserIdentityMap userIdentityMap;
+    private final TotalCounter<Long> itemsByOwner = new TotalCounter<>();
+
+    @Value("${shareit.item-search.mode:LIKE}")
+    private ItemSearchMode searchMode = ItemSearchMode.LIKE;
 
     @Override
     public Collection<ItemDtoForOwner> getAllItems(long ownerId, int start, int size) {
         validateUser(ownerId);
         Pageable pageable = PageRequest.of(start / size, size);
-        Optional<Booking> lastBooking;
-        Optional<Booking> nextBooking;
-        Collection<ItemDtoForOwner> itemDtoForOwnersList = new ArrayList<>();
         Collection<Item> itemsList = itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable).getContent();
+        if (itemsList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> itemIds = itemsList.stream().map(Item::getId).collect(Collectors.toSet());
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Booking> lastBookings = bookingRepository.findLastBookingsByItems(itemIds, now).stream()
+                .collect(Collectors.toMap(Booking::getItemId, Function.identity()));
+        Map<Long, Booking> nextBookings = bookingRepository.findNextBookingsByItems(itemIds, now).stream()
+                .collect(Collectors.toMap(Booking::getItemId, Function.identity()));
+        Map<Long, List<CommentDtoOut>> comments = findCommentsByItems(itemIds);
+        Collection<ItemDtoForOwner> itemDtoForOwnersList = new ArrayList<>();
         for (Item item : itemsList) {
-            Collection<Comment> commentList = commentRepository.findAllByItemId(item.getId());
-            Collection<CommentDtoOut> commentDtoOutList = new ArrayList<>();
-            for (Comment comment : commentList) {
-                User author = validateUser(comment.getAuthorID());
-                commentDtoOutList.add(ItemMapper.toCommentDt0FromComment(comment, author));
-            }
-            lastBooking = bookingRepository.findLastBookingByItem(item.getId(), LocalDateTime.now());
-            nextBooking = bookingRepository.findNextBookingByItem(item.getId(), LocalDateTime.now());
-            Booking last;
-            Booking next;
-            if (lastBooking.isEmpty()) {
-                last = null;
-            } else {
-                last = lastBooking.get();
-            }
-            if (nextBooking.isEmpty()) {
-                next = null;
-            } else {
-                next = nextBooking.get();
-            }
-            itemDtoForOwnersList.add(ItemMapper.toItemDtoForOwner(item, last, next, commentDtoOutList));
+            itemDtoForOwnersList.add(ItemMapper.toItemDtoForOwner(
+                    item,
+                    lastBookings.get(item.getId()),
+                    nextBookings.get(item.getId()),
+                    comments.getOrDefault(item.getId(), new ArrayList<>())));
         }
         return itemDtoForOwnersList;
     }
 
+    @Override
+    public long countItemsOfOwner(long ownerId) {
+        validateUser(ownerId);
+        return itemsByOwner.get(ownerId, itemRepository::countByOwnerId);
+    }
+
     @Override
     public ItemDtoAbstract getItemById(long userId, long itemId) {
         validateUser(userId);
@@ -83,7 +108,7 @@ public class ItemServiceImpl implements ItemService {
         Collection<Comment> commentList = commentRepository.findAllByItemId(itemId);
         Collection<CommentDtoOut> commentDtoOutList = new ArrayList<>();
         for (Comment comment : commentList) {
-            User author = validateUser(comment.getAuthorID());
+            User author = userIdentityMap.require(comment.getAuthorID());
             commentDtoOutList.add(ItemMapper.toCommentDt0FromComment(comment, author));
         }
         Optional<Booking> lastBooking = bookingRepository.findLastBookingByItem(itemId, LocalDateTime.now());
@@ -107,11 +132,54 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
+    /**
+     * Free windows of the item inside [from, to); the part of the range that is already in the past is never free.
+     */
+    @Override
+    public List<IntervalDto> getItemAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to) {
+        validateUser(userId);
+        if (!from.isBefore(to)) {
+            throw new InvalidValidationException("Начало периода должно быть раньше его конца.");
+        }
+        if (itemRepository.findById(itemId).isEmpty()) {
+            throw new ObjectNotFoundException("Вещи с ID = " + itemId + " не существует.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!to.isAfter(now)) {
+            return new ArrayList<>();
+        }
+        return BookingAvailability.freeIntervals(
+                bookingAvailability.getBusyIntervals(itemId),
+                from.isAfter(now) ? from : now,
+                to);
+    }
+
+    /**
+     * Ids of available items that have no APPROVED or WAITING booking overlapping [start, end),
+     * in the order they were requested. Answered by one anti-join query whatever the number of items.
+     */
+    @Override
+    public List<Long> getAvailableItems(long userId, ItemAvailabilityDtoIn availabilityDto) {
+        validateUser(userId);
+        if (!availabilityDto.getStart().isBefore(availabilityDto.getEnd())) {
+            throw new InvalidValidationException("Начало периода должно быть раньше его конца.");
+        }
+        Set<Long> itemIds = new LinkedHashSet<>(availabilityDto.getItemIds());
+        Set<Long> freeIds = new HashSet<>(itemRepository.findFreeItemIds(
+                itemIds,
+                BookingAvailability.BUSY_STATUSES,
+                availabilityDto.getStart(),
+                availabilityDto.getEnd()));
+        return itemIds.stream().filter(freeIds::contains).collect(Collectors.toList());
+    }
+
     @Transactional
     @Override
     public ItemDto createItem(long userId, ItemDto itemDto) {
         validateUser(userId);
         Item newItem = itemRepository.save(ItemMapper.fromItemDto(userId, itemDto));
+        itemSearchIndex.put(newItem);
+        itemsByOwner.add(userId, 1);
         log.info("Создана новая вещь = {}", newItem);
         return ItemMapper.toItemDto(newItem);
     }
@@ -129,6 +197,7 @@ public class ItemServiceImpl implements ItemService {
             throw new ObjectNotFoundException("У пользователя с ID = " + userId + " нет вещи с ID = " + itemId + ".");
         }
         updateItem = itemRepository.save(ItemMapper.mapUpdateItemFromItemDto(itemFromDb.get(), itemDto));
+        itemSearchIndex.put(updateItem);
         log.info("Вещь ID = {} успешно обновлена. {}", itemId, updateItem);
         return ItemMapper.toItemDto(updateItem);
     }
@@ -137,20 +206,73 @@ public class ItemServiceImpl implements ItemService {
     public Collection<ItemDtoForBooker> searchItemByName(long userId, String text, int start, int size) {
         validateUser(userId);
         Pageable pageable = PageRequest.of(start / size, size);
-        Collection<Item> itemsList = new ArrayList<>();
-        Collection<CommentDtoOut> commentDtoOutList = new ArrayList<>();
+        if (text.isBlank()) {
+            return new ArrayList<>();
+        }
+        Collection<Item> itemsList;
+        switch (searchMode) {
+            case FULL_TEXT:
+                itemsList = itemRepository.findAllItemByTextRanked(text, pageable);
+                break;
+            case INDEX:
+                itemsList = findItemsInIndexOrder(itemSearchIndex.search(text, (int) pageable.getOffset(), size));
+                break;
+            default:
+                itemsList = itemRepository.findAllItemByText(text, pageable).getContent();
+        }
+        return toItemDtoForBooker(itemsList);
+    }
+
+    /**
+     * Search limited to items without an APPROVED booking overlapping [availableFrom, availableTo).
+     * The overlap filter is applied inside the search itself, so offset and size count only free items.
+     */
+    @Override
+    public Collection<ItemDtoForBooker> searchAvailableItemByName(long userId,
+                                                                  String text,
+                                                                  LocalDateTime availableFrom,
+                                                                  LocalDateTime availableTo,
+                                                                  int start,
+                                                                  int size) {
+        validateUser(userId);
+        if (availableFrom == null || availableTo == null || !availableFrom.isBefore(availableTo)) {
+            throw new InvalidValidationException("Следует указать начало и конец периода, начало раньше конца.");
+        }
+        Pageable pageable = PageRequest.of(start / size, size);
+        if (text.isBlank()) {
+            return new ArrayList<>();
+        }
+        Collection<Item> itemsList;
+        switch (searchMode) {
+            case FULL_TEXT:
+                itemsList = itemRepository.findAllFreeItemByTextRanked(text, availableFrom, availableTo, pageable);
+                break;
+            case INDEX:
+                itemsList = findItemsInIndexOrder(itemSearchIndex.search(text, (int) pageable.getOffset(), size,
+                        id -> !bookingIntervalIndex.hasOverlap(id, availableFrom, availableTo)));
+                break;
+            default:
+                itemsList = itemRepository.findAllFreeItemByText(
+                        text,
+                        BookingStatus.APPROVED,
+                        availableFrom,
+                        availableTo,
+                        pageable).getContent();
+        }
+        return toItemDtoForBooker(itemsList);
+    }
+
+    private Collection<ItemDtoForBooker> toItemDtoForBooker(Collection<Item> itemsList) {
         Collection<ItemDtoForBooker> itemDtoForBookersList = new ArrayList<>();
-        if (!text.isBlank()) {
-            itemsList.addAll(itemRepository.findAllItemByText(text, pageable).getContent());
+        if (itemsList.isEmpty()) {
+            return itemDtoForBookersList;
         }
+        Map<Long, List<CommentDtoOut>> comments = findCommentsByItems(
+                itemsList.stream().map(Item::getId).collect(Collectors.toSet()));
         for (Item item : itemsList) {
-            Collection<Comment> comments = commentRepository.findAllByItemId(item.getId());
-            for (Comment comment : comments) {
-                User author = validateUser(comment.getAuthorID());
-                commentDtoOutList.add(ItemMapper.toCommentDt0FromComment(comment, author));
-            }
-            itemDtoForBookersList.add(ItemMapper.toItemDtoForBooker(item, commentDtoOutList));
-
+            itemDtoForBookersList.add(ItemMapper.toItemDtoForBooker(
+                    item,
+                    comments.getOrDefault(item.getId(), new ArrayList<>())));
         }
         return itemDtoForBookersList;
     }
@@ -164,13 +286,15 @@ public class ItemServiceImpl implements ItemService {
             throw new ObjectNotFoundException("Вещь с таким ID = " + itemId + " не существует.");
         }
         itemRepository.deleteById(itemId);
+        itemSearchIndex.remove(itemId);
+        itemsByOwner.add(itemFromDb.get().getOwnerId(), -1);
         log.info("Вещь с ID = {} успешно удалена.", itemId);
     }
 
     @Transactional
     @Override
     public CommentDtoOut createComment(long itemId, long userId, CommentDtoIn commentDtoIn) {
-        User author = validateUser(userId);
+        User author = userIdentityMap.require(userId);
         Optional<Item> itemFromDb = itemRepository.findById(itemId);
         if (itemFromDb.isEmpty()) {
             throw new ObjectNotFoundException("Вещь с таким ID = " + itemId + " не существует.");
@@ -189,12 +313,36 @@ public class ItemServiceImpl implements ItemService {
         return ItemMapper.toCommentDt0FromComment(saveComment, author);
     }
 
-    private User validateUser(long userId) {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
-            throw new ObjectNotFoundException("Пользователя с ID = " + userId + " не существует.");
+    private List<Item> findItemsInIndexOrder(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        return user.get();
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return itemIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, List<CommentDtoOut>> findCommentsByItems(Collection<Long> itemIds) {
+        List<Comment> commentList = commentRepository.findAllByItemIdIn(itemIds);
+        if (commentList.isEmpty()) {
+            return new HashMap<>();
+        }
+        Set<Long> authorIds = commentList.stream().map(Comment::getAuthorID).collect(Collectors.toSet());
+        Map<Long, User> authors = userRepository.findAllById(authorIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return commentList.stream()
+                .collect(Collectors.groupingBy(
+                        Comment::getItemId,
+                        Collectors.mapping(
+                                comment -> ItemMapper.toCommentDt0FromComment(comment, authors.get(comment.getAuthorID())),
+                                Collectors.toList())));
+    }
+
+    private void validateUser(long userId) {
+        userIdentityMap.requireExists(userId);
     }
 
 }
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.pagination;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Totals of listings kept in memory, so that asking for a total does not cost a count query on every page.
+ * A total is loaded by one count query on the first request and is then moved by deltas after each commit.
+ * A delta is announced while its transaction is still open, so a count that raced a write cannot tell whether
+ * it saw that write; such a count is returned but not kept. Totals are bounded and expire a fixed time after
+ * they were loaded, however often deltas move them, so any drift left by writes outside this counter heals on
+ * the next load.
+ */
+public class TotalCounter<K> {
+    private static final int STRIPES = 1024;
+    private static final long MAXIMUM_SIZE = 100_000;
+    private static final Duration EXPIRE_AFTER_LOAD = Duration.ofMinutes(10);
+
+    private final Cache<K, AtomicLong> totals;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray changedAt = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray pending = new AtomicLongArray(STRIPES);
+
+    public TotalCounter() {
+        this(MAXIMUM_SIZE, EXPIRE_AFTER_LOAD);
+    }
+
+    public TotalCounter(long maximumSize, Duration expireAfterLoad) {
+        this(maximumSize, expireAfterLoad, Ticker.systemTicker());
+    }
+
+    TotalCounter(long maximumSize, Duration expireAfterLoad, Ticker ticker) {
+        this.totals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(expireAfterLoad(expireAfterLoad.toNanos()))
+                .ticker(ticker)
+                .build();
+    }
+
+    public long get(K key, ToLongFunction<K> loader) {
+        AtomicLong total = totals.getIfPresent(key);
+        if (total != null) {
+            return total.get();
+        }
+        int stripe = stripe(key);
+        long stamp = sequence.get();
+        long loaded = loader.applyAsLong(key);
+        AtomicLong kept = totals.asMap().compute(key, (k, current) -> {
+            if (current != null || pending.get(stripe) > 0 || changedAt.get(stripe) > stamp) {
+                return current;
+            }
+            return new AtomicLong(loaded);
+        });
+        return kept == null ? loaded : kept.get();
+    }
+
+    /**
+     * Must be called inside the transaction that makes the change, before it commits.
+     */
+    public void add(K key, long delta) {
+        int stripe = stripe(key);
+        pending.incrementAndGet(stripe);
+        afterCompletion(committed -> {
+            if (committed) {
+                totals.asMap().computeIfPresent(key, (k, total) -> {
+                    total.addAndGet(delta);
+                    return total;
+                });
+                changedAt.set(stripe, sequence.incrementAndGet());
+            }
+            pending.decrementAndGet(stripe);
+        });
+    }
+
+    /**
+     * Applying a delta is a write to the cache, so expireAfterWrite would keep a total that is moved often alive
+     * forever; the lifetime is set once when the total is loaded and left unchanged by deltas and reads.
+     */
+    private static <K> Expiry<K, AtomicLong> expireAfterLoad(long nanos) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, AtomicLong total, long currentTime) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, AtomicLong total, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(K key, AtomicLong total, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), STRIPES);
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+}
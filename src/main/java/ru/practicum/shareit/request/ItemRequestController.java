@@ -1,12 +1,15 @@
 package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.SharerUser;
 
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -25,28 +28,43 @@ public class ItemRequestController {
 
     @GetMapping
     public Collection<ItemRequestDtoOutWithReplies> getListOfItemRequestByRequestor(
-            @RequestHeader("X-Sharer-User-Id") long userId) {
-        return itemRequestService.getListOfItemRequestByRequestor(userId);
+            SharerUser user) {
+        return itemRequestService.getListOfItemRequestByRequestor(user.getId());
     }
 
     @GetMapping(path = "/{requestId}")
-    public ItemRequestDtoOutWithReplies getItemRequestById(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ItemRequestDtoOutWithReplies getItemRequestById(SharerUser user,
                                                            @PathVariable long requestId) {
-        return itemRequestService.getItemRequestById(userId, requestId);
+        return itemRequestService.getItemRequestById(user.getId(), requestId);
     }
 
     @GetMapping(path = "/all")
-    public Collection<ItemRequestDtoOutWithReplies> getListOfItemRequestByAllUsers(
-            @RequestHeader("X-Sharer-User-Id") long userId,
+    public ResponseEntity<Collection<ItemRequestDtoOutWithReplies>> getListOfItemRequestByAllUsers(
+            SharerUser user,
             @RequestParam(value = "from", defaultValue = "0", required = false) @PositiveOrZero int start,
-            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size) {
-        return itemRequestService.getListOfItemRequestByAllUsers(userId, start, size);
+            @RequestParam(value = "size", defaultValue = "10", required = false) @Positive int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "total", defaultValue = "false", required = false) boolean total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (total) {
+            response.header(CursorPage.TOTAL_COUNT_HEADER,
+                    String.valueOf(itemRequestService.countItemRequestsOfOtherUsers(user.getId())));
+        }
+        if (cursor == null) {
+            return response.body(itemRequestService.getListOfItemRequestByAllUsers(user.getId(), start, size));
+        }
+        CursorPage<ItemRequestDtoOutWithReplies> page =
+                itemRequestService.getListOfItemRequestByAllUsersByCursor(user.getId(), cursor, size);
+        if (page.getNextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
     }
 
     @PostMapping
-    public ItemRequestDtoOut createItemRequest(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ItemRequestDtoOut createItemRequest(SharerUser user,
                                                @Validated @RequestBody ItemRequestDtoIn itemRequestDtoIn) {
-        return itemRequestService.createItemRequest(itemRequestDtoIn, userId);
+        return itemRequestService.createItemRequest(itemRequestDtoIn, user.getId());
     }
 
 }
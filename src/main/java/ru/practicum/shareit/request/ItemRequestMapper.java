@@ -6,6 +6,8 @@ import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public class ItemRequestMapper {
 
@@ -27,4 +29,15 @@ public class ItemRequestMapper {
         );
     }
 
+    public static List<ItemRequestDtoOutWithReplies> mapToItemRequestDtoOutWithReplies(
+            Collection<ItemRequest> itemRequests, Map<Long, List<Item>> repliesByRequest) {
+        List<ItemRequestDtoOutWithReplies> listOfRequests = new ArrayList<>(itemRequests.size());
+        for (ItemRequest itemRequest : itemRequests) {
+            listOfRequests.add(mapToItemRequestDtoOutWithReplies(
+                    itemRequest,
+                    repliesByRequest.getOrDefault(itemRequest.getId(), List.of())));
+        }
+        return listOfRequests;
+    }
+
 }
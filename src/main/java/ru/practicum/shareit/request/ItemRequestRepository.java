@@ -1,11 +1,12 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
@@ -14,10 +15,13 @@ public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>
 
     Optional<ItemRequest> findItemRequestById(long requestId);
 
-    @Query(value = "select * " +
-            "from requests " +
-            "where requestor_id != ?1 " +
-            "order by created_request desc", nativeQuery = true)
-    Page<ItemRequest> findAllRequests(long ownerId, Pageable pageable);
+    @Query("select r from ItemRequest as r " +
+            "where r.requestorId <> ?1 " +
+            "and r.created <= ?2 " +
+            "and (r.created < ?2 or r.id < ?3) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllRequests(long ownerId, LocalDateTime cursorTime, long cursorId, Pageable pageable);
+
+    long countByRequestorId(long requestorId);
 
 }
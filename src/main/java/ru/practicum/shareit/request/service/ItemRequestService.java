@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
@@ -15,4 +16,10 @@ public interface ItemRequestService {
     ItemRequestDtoOutWithReplies getItemRequestById(long userId, long requestId);
 
     Collection<ItemRequestDtoOutWithReplies> getListOfItemRequestByAllUsers(long userId, int start, int size);
+
+    CursorPage<ItemRequestDtoOutWithReplies> getListOfItemRequestByAllUsersByCursor(long userId,
+                                                                                   String cursor,
+                                                                                   int size);
+
+    long countItemRequestsOfOtherUsers(long userId);
 }
@@ -9,28 +9,37 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.pagination.TotalCounter;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
-import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
-    private final UserRepository userRepository;
+    private static final long ALL_REQUESTORS = 0;
+
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final UserIdentityMap userIdentityMap;
+    private final TotalCounter<Long> requestsByRequestor = new TotalCounter<>();
 
     @Override
     @Transactional
@@ -39,6 +48,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         ItemRequest newItemRequest = new ItemRequest(
                 0, itemRequestDtoIn.getDescription(), requestorId, LocalDateTime.now());
         ItemRequest saveItemRequest = itemRequestRepository.save(newItemRequest);
+        requestsByRequestor.add(requestorId, 1);
+        requestsByRequestor.add(ALL_REQUESTORS, 1);
         log.info("Добавлен новый запрос = {}", saveItemRequest);
         return ItemRequestMapper.mapToItemRequestDtoOut(saveItemRequest);
     }
@@ -46,12 +57,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public Collection<ItemRequestDtoOutWithReplies> getListOfItemRequestByRequestor(long requestorId) {
         validateUser(requestorId);
-        Collection<ItemRequestDtoOutWithReplies> listOfRequests = new ArrayList<>();
-        for (ItemRequest itemRequest : itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(requestorId)) {
-            Collection<Item> items = itemRepository.findAllByRequestId(itemRequest.getId());
-            listOfRequests.add(ItemRequestMapper.mapToItemRequestDtoOutWithReplies(itemRequest, items));
-        }
-        return listOfRequests;
+        return withReplies(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(requestorId));
     }
 
     @Override
@@ -69,19 +75,57 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     public Collection<ItemRequestDtoOutWithReplies> getListOfItemRequestByAllUsers(long userId, int start, int size) {
         validateUser(userId);
         Pageable pageable = PageRequest.of(start / size, size);
-        Collection<ItemRequestDtoOutWithReplies> listOfRequests = new ArrayList<>();
-        for (ItemRequest itemRequest : itemRequestRepository.findAllRequests(userId, pageable).getContent()) {
-            Collection<Item> items = itemRepository.findAllByRequestId(itemRequest.getId());
-            listOfRequests.add(ItemRequestMapper.mapToItemRequestDtoOutWithReplies(itemRequest, items));
+        return withReplies(itemRequestRepository.findAllRequests(
+                userId,
+                SeekCursor.FIRST.getTime(),
+                SeekCursor.FIRST.getId(),
+                pageable));
+    }
+
+    @Override
+    public CursorPage<ItemRequestDtoOutWithReplies> getListOfItemRequestByAllUsersByCursor(long userId,
+                                                                                          String cursor,
+                                                                                          int size) {
+        SeekCursor seekCursor = SeekCursor.decode(cursor);
+        validateUser(userId);
+        List<ItemRequest> itemRequests = itemRequestRepository.findAllRequests(
+                userId,
+                seekCursor.getTime(),
+                seekCursor.getId(),
+                PageRequest.of(0, size + 1));
+        CursorPage<ItemRequest> page = CursorPage.of(
+                itemRequests,
+                size,
+                itemRequest -> new SeekCursor(itemRequest.getCreated(), itemRequest.getId()));
+        return new CursorPage<>(withReplies(page.getContent()), page.getNextCursor());
+    }
+
+    @Override
+    public long countItemRequestsOfOtherUsers(long userId) {
+        validateUser(userId);
+        long others = requestsByRequestor.get(ALL_REQUESTORS, this::countRequests)
+                - requestsByRequestor.get(userId, this::countRequests);
+        return Math.max(others, 0);
+    }
+
+    private long countRequests(long requestorId) {
+        return requestorId == ALL_REQUESTORS
+                ? itemRequestRepository.count()
+                : itemRequestRepository.countByRequestorId(requestorId);
+    }
+
+    private List<ItemRequestDtoOutWithReplies> withReplies(Collection<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return new ArrayList<>();
         }
-        return listOfRequests;
+        Set<Long> requestIds = itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toSet());
+        Map<Long, List<Item>> repliesByRequest = itemRepository.findAllByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(Item::getRequestId));
+        return ItemRequestMapper.mapToItemRequestDtoOutWithReplies(itemRequests, repliesByRequest);
     }
 
     private void validateUser(long userId) {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
-            throw new ObjectNotFoundException("Пользователя с ID = " + userId + " не существует.");
-        }
+        userIdentityMap.requireExists(userId);
     }
 
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.user;
+
+import lombok.Value;
+
+/**
+ * Caller of a request identified by the X-Sharer-User-Id header, resolved once per request.
+ */
+@Value
+public class SharerUser {
+    public static final String HEADER = "X-Sharer-User-Id";
+
+    long id;
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.user;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import ru.practicum.shareit.exception.InvalidValidationException;
+import ru.practicum.shareit.user.service.UserIdentityMap;
+
+@Component
+@RequiredArgsConstructor
+public class SharerUserArgumentResolver implements HandlerMethodArgumentResolver {
+    private final UserIdentityMap userIdentityMap;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return SharerUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public SharerUser resolveArgument(MethodParameter parameter,
+                                      ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest,
+                                      WebDataBinderFactory binderFactory) throws MissingRequestHeaderException {
+        String header = webRequest.getHeader(SharerUser.HEADER);
+        if (header == null) {
+            throw new MissingRequestHeaderException(SharerUser.HEADER, parameter);
+        }
+        long userId;
+        try {
+            userId = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidValidationException("Некорректный ID пользователя: " + header);
+        }
+        userIdentityMap.requireExists(userId);
+        return new SharerUser(userId);
+    }
+
+}
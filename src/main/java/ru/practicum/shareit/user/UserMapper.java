@@ -17,14 +17,19 @@ public class UserMapper {
                 user.getEmail());
     }
 
+    public static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail());
+    }
+
     public static User mapUpdateFromUserDto(UserDto userDto, User user) {
+        User updateUser = copy(user);
         if (userDto.getEmail() != null) {
-            user.setEmail(userDto.getEmail());
+            updateUser.setEmail(userDto.getEmail());
         }
         if (userDto.getName() != null) {
-            user.setName(userDto.getName());
+            updateUser.setName(userDto.getName());
         }
-        return user;
+        return updateUser;
     }
 
     public static User mapToNewUser(UserDto userDto) {
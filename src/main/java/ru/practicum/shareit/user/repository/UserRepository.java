@@ -1,12 +1,76 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.config.CacheConfig;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * Every write method evicts, so no path can leave a stale User cached; bulk methods clear the whole cache.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USERS, sync = true)
+    Optional<User> findById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0.id")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0.id")
+    <S extends User> S saveAndFlush(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    <S extends User> List<S> saveAllAndFlush(Iterable<S> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0.id")
+    void delete(User user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAll(Iterable<? extends User> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAllInBatch(Iterable<User> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAllInBatch();
+
     Optional<User> findByEmail(String email);
 
+    @Query("select u.id from User u where u.id > ?1 order by u.id")
+    List<Long> findIdsByIdGreaterThan(long id, Pageable pageable);
+
 }
@@ -0,0 +1,280 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over ids of existing users. The filter is local to one instance and learns only the ids created
+ * through it, so users written by another instance, by migrations or straight through the repository are missing
+ * until the next rebuild. A negative answer is therefore confirmed by the repository like a positive one, and a
+ * user found that way is added to the filter; the answers only sort the checks into the result counters.
+ * Ids of deleted users stay in the filter, so it is rebuilt on startup and in the background
+ * once deletions or growth push the expected false positive rate over twice the configured one.
+ */
+@Slf4j
+@Component
+public class UserExistenceFilter {
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double falsePositiveProbability;
+    private final Counter negatives;
+    private final Counter missed;
+    private final Counter confirmed;
+    private final Counter falsePositives;
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Bits bits;
+    private volatile Bits building;
+
+    public UserExistenceFilter(UserRepository userRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${shareit.user-filter.expected-users:100000}") long expectedUsers,
+                               @Value("${shareit.user-filter.false-positive-probability:0.01}")
+                               double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.negatives = checks(meterRegistry, "negative");
+        this.missed = checks(meterRegistry, "missed");
+        this.confirmed = checks(meterRegistry, "confirmed");
+        this.falsePositives = checks(meterRegistry, "false_positive");
+        Gauge.builder("shareit.user.filter.false.positive.rate", this, UserExistenceFilter::falsePositiveRate)
+                .description("Доля отсутствующих ID пользователей, пропущенных фильтром")
+                .register(meterRegistry);
+        Gauge.builder("shareit.user.filter.expected.false.positive.rate", this,
+                        UserExistenceFilter::expectedFalsePositiveRate)
+                .description("Ожидаемая доля ложных срабатываний по заполненности фильтра")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replaces the filter with one built from all user ids. Until the first build every id passes the filter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Bits next = new Bits(Math.max(expectedUsers, userRepository.count() * 2), falsePositiveProbability);
+        building = next;
+        deleted.set(0);
+        long lastId = 0;
+        List<Long> batch;
+        do {
+            batch = userRepository.findIdsByIdGreaterThan(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            batch.forEach(next::add);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        bits = next;
+        building = null;
+        log.info("Фильтр пользователей загружен: {} пользователей, {} бит.", next.inserted.get(), next.size);
+    }
+
+    public boolean exists(long userId) {
+        boolean known = mightContain(userId);
+        boolean exists = userRepository.existsById(userId);
+        return known ? confirm(exists) : confirmNegative(userId, exists);
+    }
+
+    public Optional<User> find(long userId) {
+        boolean known = mightContain(userId);
+        Optional<User> user = userRepository.findById(userId);
+        if (known) {
+            confirm(user.isPresent());
+        } else {
+            confirmNegative(userId, user.isPresent());
+        }
+        return user;
+    }
+
+    public void put(long userId) {
+        afterCommit(() -> {
+            add(userId);
+            rebuildIfDegraded();
+        });
+    }
+
+    public void remove(long userId) {
+        afterCommit(() -> {
+            deleted.incrementAndGet();
+            rebuildIfDegraded();
+        });
+    }
+
+    private boolean mightContain(long userId) {
+        Bits current = bits;
+        return current == null || current.mightContain(userId);
+    }
+
+    private boolean confirm(boolean exists) {
+        if (bits != null) {
+            (exists ? confirmed : falsePositives).increment();
+        }
+        return exists;
+    }
+
+    private boolean confirmNegative(long userId, boolean exists) {
+        if (exists) {
+            missed.increment();
+            add(userId);
+        } else {
+            negatives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * A rebuild may publish its filter between the reads of bits and building, after it read the last ids; the
+     * id would then be only in the replaced filter, so bits is read again and the new filter gets it too.
+     */
+    private void add(long userId) {
+        Bits current = bits;
+        if (current != null) {
+            current.add(userId);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.add(userId);
+        }
+        Bits published = bits;
+        if (published != current && published != null) {
+            published.add(userId);
+        }
+    }
+
+    private void rebuildIfDegraded() {
+        Bits current = bits;
+        if (current == null) {
+            return;
+        }
+        boolean overfilled = current.expectedFalsePositiveRate() > falsePositiveProbability * 2;
+        boolean stale = deleted.get() * 4 > current.inserted.get();
+        if ((overfilled || stale) && rebuilding.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::rebuild)
+                    .whenComplete((result, e) -> {
+                        rebuilding.set(false);
+                        if (e != null) {
+                            log.error("Не удалось перестроить фильтр пользователей.", e);
+                        }
+                    });
+        }
+    }
+
+    private double falsePositiveRate() {
+        double missing = negatives.count() + falsePositives.count();
+        return missing == 0 ? 0 : falsePositives.count() / missing;
+    }
+
+    private double expectedFalsePositiveRate() {
+        Bits current = bits;
+        return current == null ? 1 : current.expectedFalsePositiveRate();
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("shareit.user.filter.checks")
+                .description("Проверки существования пользователя по фильтру")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Bit array sized for the expected number of ids, probed by double hashing of a mixed id.
+     */
+    static class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final AtomicLong setBits = new AtomicLong();
+        private final AtomicLong inserted = new AtomicLong();
+
+        Bits(long expectedInsertions, double falsePositiveProbability) {
+            long n = Math.max(expectedInsertions, 1);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((m + 63) / 64));
+            this.size = words.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+        }
+
+        void add(long id) {
+            long hash = mix(id);
+            for (int i = 0; i < hashes; i++) {
+                set(index(hash, i));
+            }
+            inserted.incrementAndGet();
+        }
+
+        boolean mightContain(long id) {
+            long hash = mix(id);
+            for (int i = 0; i < hashes; i++) {
+                long bit = index(hash, i);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) setBits.get() / size, hashes);
+        }
+
+        private void set(long bit) {
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long value;
+            do {
+                value = words.get(word);
+                if ((value & mask) != 0) {
+                    return;
+                }
+            } while (!words.compareAndSet(word, value, value | mask));
+            setBits.incrementAndGet();
+        }
+
+        private long index(long hash, int i) {
+            long first = hash & 0xFFFFFFFFL;
+            long second = hash >>> 32;
+            return Math.floorMod(first + i * second, size);
+        }
+
+        private static long mix(long id) {
+            long z = id + 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+}
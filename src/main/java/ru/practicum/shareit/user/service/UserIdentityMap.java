@@ -0,0 +1,75 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Users already loaded or confirmed by the current web request, so every user is queried at most once per request.
+ * Outside of a request every call goes to the existence filter.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserIdentityMap {
+    private static final String ATTRIBUTE = UserIdentityMap.class.getName();
+
+    private final UserExistenceFilter userExistenceFilter;
+
+    public User require(long userId) {
+        Identities identities = requestIdentities();
+        User user = identities == null ? null : identities.users.get(userId);
+        if (user != null) {
+            return user;
+        }
+        user = userExistenceFilter.find(userId).orElseThrow(() -> notFound(userId));
+        if (identities != null) {
+            identities.users.put(userId, user);
+            identities.existing.add(userId);
+        }
+        return user;
+    }
+
+    public void requireExists(long userId) {
+        Identities identities = requestIdentities();
+        if (identities != null && identities.existing.contains(userId)) {
+            return;
+        }
+        if (!userExistenceFilter.exists(userId)) {
+            throw notFound(userId);
+        }
+        if (identities != null) {
+            identities.existing.add(userId);
+        }
+    }
+
+    private static ObjectNotFoundException notFound(long userId) {
+        return new ObjectNotFoundException("Пользователя с ID = " + userId + " не существует.");
+    }
+
+    private static Identities requestIdentities() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Identities identities = (Identities) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (identities == null) {
+            identities = new Identities();
+            attributes.setAttribute(ATTRIBUTE, identities, RequestAttributes.SCOPE_REQUEST);
+        }
+        return identities;
+    }
+
+    private static class Identities {
+        private final Map<Long, User> users = new HashMap<>();
+        private final Set<Long> existing = new HashSet<>();
+    }
+
+}
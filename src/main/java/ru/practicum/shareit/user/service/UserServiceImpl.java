@@ -20,6 +20,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserExistenceFilter userExistenceFilter;
 
     @Override
     public Collection<UserDto> getAllUsers() {
@@ -31,6 +32,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDto createUser(UserDto userDto) {
         User newSaveUser = validateUserDto(userDto);
+        userExistenceFilter.put(newSaveUser.getId());
         log.info("Создан новый пользователь = {}", newSaveUser);
         return UserMapper.toUserDto(newSaveUser);
     }
@@ -56,6 +58,7 @@ public class UserServiceImpl implements UserService {
             throw new ObjectNotFoundException("Пользователя с ID = " + idUser + " не существует.");
         }
         userRepository.deleteById(idUser);
+        userExistenceFilter.remove(idUser);
         log.info("Пользователь ID = {} успешно удален.", idUser);
     }
 
@@ -0,0 +1,14 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase varchar(16);
+
+UPDATE bookings SET phase = CASE
+    WHEN start_date > CURRENT_TIMESTAMP THEN 'FUTURE'
+    WHEN end_date > CURRENT_TIMESTAMP THEN 'CURRENT'
+    ELSE 'PAST' END
+WHERE phase IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN phase SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_phase_start ON bookings (booker_id, phase, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_phase_start ON bookings (owner_id, phase, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_phase_start ON bookings (phase, start_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_phase_end ON bookings (phase, end_date);
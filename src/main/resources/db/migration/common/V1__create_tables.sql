@@ -26,7 +26,7 @@ CREATE TABLE IF NOT EXISTS bookings (
  CONSTRAINT bookings_pk PRIMARY KEY (id),
  CONSTRAINT fk_item_id FOREIGN KEY (item_id) references items (id),
  CONSTRAINT fk_booker_id FOREIGN KEY (booker_id) references users (id),
- CONSTRAINT cont_date CHECK ( end_date > bookings.start_date )
+ CONSTRAINT cont_date CHECK (end_date > start_date)
 );
 
 CREATE TABLE IF NOT EXISTS requests (
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_requests_created_id ON requests (created_request DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_requests_created;
@@ -0,0 +1,5 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS created_date timestamp without time zone;
+
+UPDATE bookings SET created_date = CURRENT_TIMESTAMP WHERE created_date IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN created_date SET NOT NULL;
@@ -0,0 +1,7 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS ex_bookings_approved_overlap;
+
+ALTER TABLE bookings ADD CONSTRAINT ex_bookings_approved_overlap
+ EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+ WHERE (status = 'APPROVED');
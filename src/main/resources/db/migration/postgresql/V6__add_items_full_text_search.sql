@@ -0,0 +1,11 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector
+ GENERATED ALWAYS AS (
+  setweight(to_tsvector('simple', coalesce(item_name, '')), 'A') ||
+  setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+ ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING gin (search_vector) WHERE available;
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING gin (upper(item_name) gin_trgm_ops) WHERE available;
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING gin (upper(description) gin_trgm_ops) WHERE available;
@@ -0,0 +1,189 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingPhase;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Calls every filtering repository method, records the SQL Hibernate sends for it and runs EXPLAIN on that SQL
+ * with the parameters left unbound. Fails on a full scan of a big table. Substring search over items scans by
+ * design and is not listed; the ranked search uses PostgreSQL full-text functions and cannot run on H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.QueryPlanTest$SqlRecorder")
+class QueryPlanTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime CURSOR_TIME = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("BookingRepository.findAllDtoByBooker",
+                        test -> test.bookingRepository.findAllDtoByBooker(1L, CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findCurrentDtoByBooker",
+                        test -> test.bookingRepository.findCurrentDtoByBooker(
+                                1L, NOW, NOW.minusMinutes(5), CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findPastDtoByBooker",
+                        test -> test.bookingRepository.findPastDtoByBooker(
+                                1L, NOW, NOW.minusMinutes(5), CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findFutureDtoByBooker",
+                        test -> test.bookingRepository.findFutureDtoByBooker(1L, NOW, CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findStatusDtoByBooker",
+                        test -> test.bookingRepository.findStatusDtoByBooker(
+                                1L, BookingStatus.WAITING, CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findAllDtoByOwner",
+                        test -> test.bookingRepository.findAllDtoByOwner(1L, CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findCurrentDtoByOwner",
+                        test -> test.bookingRepository.findCurrentDtoByOwner(
+                                1L, NOW, NOW.minusMinutes(5), CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findPastDtoByOwner",
+                        test -> test.bookingRepository.findPastDtoByOwner(
+                                1L, NOW, NOW.minusMinutes(5), CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findFutureDtoByOwner",
+                        test -> test.bookingRepository.findFutureDtoByOwner(1L, NOW, CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.findStatusDtoByOwner",
+                        test -> test.bookingRepository.findStatusDtoByOwner(
+                                1L, BookingStatus.WAITING, CURSOR_TIME, 100L, PAGE)),
+                query("BookingRepository.countByBookerIdAndStatus",
+                        test -> test.bookingRepository.countByBookerIdAndStatus(1L, BookingStatus.WAITING)),
+                query("BookingRepository.countByOwnerIdAndStatus",
+                        test -> test.bookingRepository.countByOwnerIdAndStatus(1L, BookingStatus.WAITING)),
+                query("BookingRepository.findLastBookingByItem",
+                        test -> test.bookingRepository.findLastBookingByItem(1L, NOW)),
+                query("BookingRepository.findNextBookingByItem",
+                        test -> test.bookingRepository.findNextBookingByItem(1L, NOW)),
+                query("BookingRepository.findLastBookingsByItems",
+                        test -> test.bookingRepository.findLastBookingsByItems(List.of(1L, 2L, 3L), NOW)),
+                query("BookingRepository.findNextBookingsByItems",
+                        test -> test.bookingRepository.findNextBookingsByItems(List.of(1L, 2L, 3L), NOW)),
+                query("BookingRepository.findBookingByItemIdAndBookerIdAndEndIsBefore",
+                        test -> test.bookingRepository.findBookingByItemIdAndBookerIdAndEndIsBefore(1L, 2L, NOW)),
+                query("BookingRepository.findStatusById",
+                        test -> test.bookingRepository.findStatusById(1L)),
+                query("BookingRepository.findAllByStatusAndEndAfter",
+                        test -> test.bookingRepository.findAllByStatusAndEndAfter(BookingStatus.APPROVED, NOW)),
+                query("BookingRepository.findAllByStatusAndIdGreaterThanOrderById",
+                        test -> test.bookingRepository.findAllByStatusAndIdGreaterThanOrderById(
+                                BookingStatus.WAITING, 1L, PageRequest.of(0, 1000))),
+                query("BookingRepository.findAllByStatusAndEndAfterAndIdGreaterThanOrderById",
+                        test -> test.bookingRepository.findAllByStatusAndEndAfterAndIdGreaterThanOrderById(
+                                BookingStatus.APPROVED, NOW, 1L, PageRequest.of(0, 1000))),
+                query("BookingRepository.findIdsByIdInAndStatus",
+                        test -> test.bookingRepository.findIdsByIdInAndStatus(
+                                List.of(1L, 2L, 3L), BookingStatus.WAITING)),
+                query("BookingRepository.findIdsByPhaseAndStartReached",
+                        test -> test.bookingRepository.findIdsByPhaseAndStartReached(
+                                BookingPhase.FUTURE, NOW, PageRequest.of(0, 500))),
+                query("BookingRepository.findIdsByPhaseAndEndReached",
+                        test -> test.bookingRepository.findIdsByPhaseAndEndReached(
+                                BookingPhase.CURRENT, NOW, PageRequest.of(0, 500))),
+                query("BookingRepository.findAllByItemIdAndStatusInAndEndAfter",
+                        test -> test.bookingRepository.findAllByItemIdAndStatusInAndEndAfter(
+                                1L, List.of(BookingStatus.APPROVED, BookingStatus.WAITING), NOW)),
+                query("ItemRepository.findAllByOwnerIdIsOrderById",
+                        test -> test.itemRepository.findAllByOwnerIdIsOrderById(1L, PAGE)),
+                query("ItemRepository.countByOwnerId",
+                        test -> test.itemRepository.countByOwnerId(1L)),
+                query("ItemRepository.existsByOwnerId",
+                        test -> test.itemRepository.existsByOwnerId(1L)),
+                query("ItemRepository.findFreeItemIds",
+                        test -> test.itemRepository.findFreeItemIds(List.of(1L, 2L, 3L),
+                                List.of(BookingStatus.APPROVED, BookingStatus.WAITING), NOW, NOW.plusDays(4))),
+                query("ItemRepository.findAllByRequestId",
+                        test -> test.itemRepository.findAllByRequestId(1L)),
+                query("ItemRepository.findAllByRequestIdIn",
+                        test -> test.itemRepository.findAllByRequestIdIn(List.of(1L, 2L, 3L))),
+                query("ItemRepository.findAllByAvailableTrueAndIdGreaterThanOrderById",
+                        test -> test.itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderById(
+                                1L, PageRequest.of(0, 1000))),
+                query("CommentRepository.findAllByItemId",
+                        test -> test.commentRepository.findAllByItemId(1L)),
+                query("CommentRepository.findAllByItemIdIn",
+                        test -> test.commentRepository.findAllByItemIdIn(List.of(1L, 2L, 3L))),
+                query("ItemRequestRepository.findAllByRequestorIdOrderByCreatedDesc",
+                        test -> test.itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(1L)),
+                query("ItemRequestRepository.countByRequestorId",
+                        test -> test.itemRequestRepository.countByRequestorId(1L)),
+                query("ItemRequestRepository.findAllRequests",
+                        test -> test.itemRequestRepository.findAllRequests(1L, CURSOR_TIME, 100L, PAGE)),
+                query("UserRepository.findByEmail",
+                        test -> test.userRepository.findByEmail("user@ru")),
+                query("UserRepository.findIdsByIdGreaterThan",
+                        test -> test.userRepository.findIdsByIdGreaterThan(1L, PageRequest.of(0, 1000)))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void explain_whenRepositoryQuery_thenNoFullScan(String method, RepositoryCall call) {
+        SqlRecorder.STATEMENTS.clear();
+        call.invoke(this);
+        List<String> statements = List.copyOf(SqlRecorder.STATEMENTS);
+
+        assertFalse(statements.isEmpty(), method + ": no SQL recorded");
+        statements.forEach(sql -> jdbcTemplate.query(connection -> connection.prepareStatement("explain " + sql),
+                        (rs, rowNum) -> rs.getString(1))
+                .forEach(line -> {
+                    assertFalse(line.contains("tableScan"), method + ": " + line);
+                    assertFalse(line.contains("Seq Scan"), method + ": " + line);
+                }));
+    }
+
+    private static Arguments query(String method, RepositoryCall call) {
+        return Arguments.of(method, call);
+    }
+
+    @FunctionalInterface
+    interface RepositoryCall {
+        void invoke(QueryPlanTest test);
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.IntervalDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingAvailabilityTest {
+    private LocalDateTime now;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private BookingAvailability bookingAvailability;
+
+    @BeforeEach
+    void createUnits() {
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void getBusyIntervals_whenBookingsOverlapOrTouch_thenMergedIntoOneWindow() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(
+                eq(1L),
+                eq(Set.of(BookingStatus.APPROVED, BookingStatus.WAITING)),
+                any())).thenReturn(List.of(
+                new Booking(3L, now.plusDays(10), now.plusDays(12), 1L, 2L, 1L, BookingStatus.WAITING),
+                new Booking(1L, now.plusDays(1), now.plusDays(4), 1L, 2L, 1L, BookingStatus.APPROVED),
+                new Booking(2L, now.plusDays(2), now.plusDays(3), 1L, 3L, 1L, BookingStatus.WAITING),
+                new Booking(4L, now.plusDays(4), now.plusDays(5), 1L, 3L, 1L, BookingStatus.APPROVED)));
+
+        List<IntervalDto> result = bookingAvailability.getBusyIntervals(1L);
+
+        assertEquals(List.of(
+                new IntervalDto(now.plusDays(1), now.plusDays(5)),
+                new IntervalDto(now.plusDays(10), now.plusDays(12))), result);
+    }
+
+    @Test
+    void getBusyIntervals_whenItemHasNoBookings_thenEmptyList() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(eq(1L), any(), any())).thenReturn(List.of());
+
+        assertTrue(bookingAvailability.getBusyIntervals(1L).isEmpty());
+    }
+
+    @Test
+    void freeIntervals_whenRangeStartsAndEndsInsideBusyWindows_thenOnlyGapsBetweenThem() {
+        List<IntervalDto> busy = List.of(
+                new IntervalDto(now, now.plusDays(2)),
+                new IntervalDto(now.plusDays(3), now.plusDays(4)),
+                new IntervalDto(now.plusDays(6), now.plusDays(8)));
+
+        List<IntervalDto> result = BookingAvailability.freeIntervals(busy, now.plusDays(1), now.plusDays(7));
+
+        assertEquals(List.of(
+                new IntervalDto(now.plusDays(2), now.plusDays(3)),
+                new IntervalDto(now.plusDays(4), now.plusDays(6))), result);
+    }
+
+    @Test
+    void freeIntervals_whenNoBusyWindows_thenWholeRangeIsFree() {
+        List<IntervalDto> result = BookingAvailability.freeIntervals(List.of(), now, now.plusDays(1));
+
+        assertEquals(List.of(new IntervalDto(now, now.plusDays(1))), result);
+    }
+
+    @Test
+    void freeIntervals_whenRangeIsFullyBusy_thenEmptyList() {
+        List<IntervalDto> busy = List.of(new IntervalDto(now, now.plusDays(5)));
+
+        assertTrue(BookingAvailability.freeIntervals(busy, now.plusDays(1), now.plusDays(2)).isEmpty());
+    }
+
+}
@@ -7,21 +7,40 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
+@Import(IdempotencyStore.class)
 class BookingControllerIntegrTest {
     private BookingDtoFullOut bookingDtoFullOut;
     private BookingDtoIn bookingDtoIn;
@@ -35,6 +54,9 @@ class BookingControllerIntegrTest {
     @MockBean
     BookingService bookingService;
 
+    @MockBean
+    UserIdentityMap userIdentityMap;
+
     @BeforeEach
     void createBookings() {
         bookingDtoFullOut = new BookingDtoFullOut(
@@ -139,6 +161,84 @@ class BookingControllerIntegrTest {
         assertEquals(objectMapper.writeValueAsString(listOfBooking), result);
     }
 
+    @SneakyThrows
+    @Test
+    void getListOfBookingsBooker_whenCursorParam_thenReturnPageAndNextCursorHeader() {
+        long userId = 1L;
+        List<BookingDtoFullOut> listOfBooking = List.of(bookingDtoFullOut);
+        String nextCursor = new SeekCursor(bookingDtoFullOut.getStart(), bookingDtoFullOut.getId()).encode();
+        when(bookingService.getListOfBookingsBookerByCursor(userId, "ALL", "", 1))
+                .thenReturn(new CursorPage<>(listOfBooking, nextCursor));
+
+        MockHttpServletResponse response = mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("cursor", "")
+                        .param("size", String.valueOf(1)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        verify(bookingService, never()).getListOfBookingsBooker(anyLong(), anyString(), anyInt(), anyInt());
+        assertEquals(objectMapper.writeValueAsString(listOfBooking), response.getContentAsString());
+        assertEquals(nextCursor, response.getHeader(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
+    @SneakyThrows
+    @Test
+    void getListOfBookingsOwner_whenCursorParamOnLastPage_thenWithoutNextCursorHeader() {
+        long userId = 1L;
+        List<BookingDtoFullOut> listOfBooking = List.of(bookingDtoFullOut);
+        when(bookingService.getListOfBookingsOwnerByCursor(userId, "PAST", "token", 10))
+                .thenReturn(new CursorPage<>(listOfBooking, null));
+
+        MockHttpServletResponse response = mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("state", "PAST")
+                        .param("cursor", "token"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertEquals(objectMapper.writeValueAsString(listOfBooking), response.getContentAsString());
+        assertNull(response.getHeader(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
+    @SneakyThrows
+    @Test
+    void getListOfBookingsBooker_whenTotalRequested_thenReturnTotalCountHeader() {
+        long userId = 1L;
+        when(bookingService.getListOfBookingsBooker(userId, "WAITING", 0, 10)).thenReturn(List.of(bookingDtoFullOut));
+        when(bookingService.countBookingsBooker(userId, "WAITING")).thenReturn(Optional.of(3L));
+
+        MockHttpServletResponse response = mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("state", "WAITING")
+                        .param("total", "true"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertEquals("3", response.getHeader(CursorPage.TOTAL_COUNT_HEADER));
+    }
+
+    @SneakyThrows
+    @Test
+    void getListOfBookingsOwner_whenTotalRequestedForTimeState_thenWithoutTotalCountHeader() {
+        long userId = 1L;
+        when(bookingService.getListOfBookingsOwner(userId, "PAST", 0, 10)).thenReturn(List.of(bookingDtoFullOut));
+        when(bookingService.countBookingsOwner(userId, "PAST")).thenReturn(Optional.empty());
+
+        MockHttpServletResponse response = mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("state", "PAST")
+                        .param("total", "true"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertNull(response.getHeader(CursorPage.TOTAL_COUNT_HEADER));
+    }
+
     @SneakyThrows
     @Test
     void getListOfBookingsOwner_whenWithoutParams_thenStatusOkAndParamIsDefault() {
@@ -221,6 +321,41 @@ class BookingControllerIntegrTest {
         assertEquals(objectMapper.writeValueAsString(listOfBooking), result);
     }
 
+    @SneakyThrows
+    @Test
+    void exportBookings_whenWithoutParams_thenNdjsonOfOwnerIsStreamed() {
+        long userId = 1L;
+        StreamingResponseBody body = out -> out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+        when(bookingService.exportBookings(userId, "OWNER", BookingExportFormat.NDJSON)).thenReturn(body);
+
+        MvcResult started = mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(Duration.ofMinutes(10).toMillis(), started.getRequest().getAsyncContext().getTimeout());
+        String result = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals("{\"id\":1}\n", result);
+    }
+
+    @SneakyThrows
+    @Test
+    void exportBookings_whenFormatIsUnknown_thenStatusBadRequest() {
+        long userId = 1L;
+
+        mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService, never()).exportBookings(anyLong(), anyString(), any());
+    }
+
     @SneakyThrows
     @Test
     void getBookingInfo_whenInvoke_thenReturnBookingDtoFullOut() {
@@ -331,6 +466,134 @@ class BookingControllerIntegrTest {
         assertEquals(objectMapper.writeValueAsString(bookingDtoFullOut), result);
     }
 
+    @SneakyThrows
+    @Test
+    void createBooking_whenRetriedWithSameIdempotencyKey_thenBookingCreatedOnce() {
+        long userId = 1L;
+        when(bookingService.createBooking(bookingDtoIn, userId)).thenReturn(bookingDtoFullOut);
+
+        for (int i = 0; i < 2; i++) {
+            String result = mvc.perform(post("/bookings")
+                            .header("X-Sharer-User-Id", userId)
+                            .header(IdempotencyStore.HEADER, "retry-1")
+                            .contentType("application/json")
+                            .content(objectMapper.writeValueAsString(bookingDtoIn)))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            assertEquals(objectMapper.writeValueAsString(bookingDtoFullOut), result);
+        }
+        verify(bookingService, times(1)).createBooking(bookingDtoIn, userId);
+    }
+
+    @SneakyThrows
+    @Test
+    void createBooking_whenIdempotencyKeyReusedForOtherBooking_thenReturnConflict() {
+        long userId = 1L;
+        when(bookingService.createBooking(bookingDtoIn, userId)).thenReturn(bookingDtoFullOut);
+        mvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", userId)
+                        .header(IdempotencyStore.HEADER, "retry-2")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookingDtoIn)))
+                .andExpect(status().isOk());
+        bookingDtoIn.setItemId(2L);
+
+        mvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", userId)
+                        .header(IdempotencyStore.HEADER, "retry-2")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(bookingDtoIn)))
+                .andExpect(status().isConflict());
+
+        verify(bookingService, never()).createBooking(bookingDtoIn, userId);
+    }
+
+    @SneakyThrows
+    @Test
+    void createBookings_whenValidateIsOk_thenReturnResultPerEntry() {
+        long userId = 1L;
+        BookingBatchDtoIn batch = new BookingBatchDtoIn(List.of(bookingDtoIn));
+        List<BookingBatchResultDto> results = List.of(BookingBatchResultDto.created(0, bookingDtoFullOut));
+        when(bookingService.createBookings(batch, userId)).thenReturn(results);
+
+        String result = mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(results), result);
+    }
+
+    @SneakyThrows
+    @Test
+    void createBookings_whenEntryWithoutStart_thenReturnBadRequest() {
+        long userId = 1L;
+        bookingDtoIn.setStart(null);
+        BookingBatchDtoIn batch = new BookingBatchDtoIn(List.of(bookingDtoIn));
+
+        mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService, never()).createBookings(any(), anyLong());
+    }
+
+    @SneakyThrows
+    @Test
+    void createBookings_whenNoEntries_thenReturnBadRequest() {
+        mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(new BookingBatchDtoIn(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService, never()).createBookings(any(), anyLong());
+    }
+
+    @SneakyThrows
+    @Test
+    void approveBookings_whenValidateIsOk_thenReturnResultPerDecision() {
+        long userId = 1L;
+        BookingApprovalDtoIn approval = new BookingApprovalDtoIn(List.of(new BookingDecisionDto(1L, true)));
+        List<BookingBatchResultDto> results = List.of(BookingBatchResultDto.decided(0, bookingDtoFullOut));
+        when(bookingService.approveBookings(approval, userId)).thenReturn(results);
+
+        String result = mvc.perform(patch("/bookings/approval")
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(approval)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(results), result);
+        verify(bookingService, never()).getApprovedBooking(anyLong(), anyLong(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void approveBookings_whenDecisionWithoutApproved_thenReturnBadRequest() {
+        BookingApprovalDtoIn approval = new BookingApprovalDtoIn(List.of(new BookingDecisionDto(1L, null)));
+
+        mvc.perform(patch("/bookings/approval")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(approval)))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService, never()).approveBookings(any(), anyLong());
+    }
+
     @SneakyThrows
     @Test
     void doApprovedBooking_whenWithoutParam_thenReturnStatusIs500() {
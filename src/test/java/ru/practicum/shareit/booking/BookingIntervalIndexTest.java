@@ -0,0 +1,160 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    private LocalDateTime now;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @BeforeEach
+    void createUnits() {
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void hasOverlap_whenItemHasNoBookings_thenFalse() {
+        assertFalse(bookingIntervalIndex.hasOverlap(1L, now, now.plusDays(1)));
+    }
+
+    @Test
+    void hasOverlap_whenApprovedBookingAdded_thenTrueOnlyForIntersectingWindowOfSameItem() {
+        bookingIntervalIndex.add(new Booking(1L, now.plusDays(1), now.plusDays(5), 1L, 2L, 1L, BookingStatus.APPROVED));
+
+        assertTrue(bookingIntervalIndex.hasOverlap(1L, now, now.plusDays(2)));
+        assertTrue(bookingIntervalIndex.hasOverlap(1L, now.plusDays(2), now.plusDays(3)));
+        assertTrue(bookingIntervalIndex.hasOverlap(1L, now, now.plusDays(10)));
+        assertFalse(bookingIntervalIndex.hasOverlap(1L, now, now.plusDays(1)));
+        assertFalse(bookingIntervalIndex.hasOverlap(1L, now.plusDays(5), now.plusDays(6)));
+        assertFalse(bookingIntervalIndex.hasOverlap(2L, now.plusDays(2), now.plusDays(3)));
+    }
+
+    @Test
+    void hasOverlap_whenBookingRemoved_thenFalse() {
+        Booking booking = new Booking(1L, now.plusDays(1), now.plusDays(5), 1L, 2L, 1L, BookingStatus.APPROVED);
+        bookingIntervalIndex.add(booking);
+
+        bookingIntervalIndex.remove(booking);
+
+        assertFalse(bookingIntervalIndex.hasOverlap(1L, now.plusDays(2), now.plusDays(3)));
+    }
+
+    @Test
+    void onBookingLifecycleEvent_whenBookingEnded_thenWindowRemoved() {
+        Booking booking = new Booking(1L, now.plusDays(1), now.plusDays(5), 1L, 2L, 1L, BookingStatus.APPROVED);
+        bookingIntervalIndex.add(booking);
+
+        bookingIntervalIndex.onBookingLifecycleEvent(new BookingLifecycleEvent(BookingLifecycleEvent.Type.STARTED, booking));
+        assertTrue(bookingIntervalIndex.hasOverlap(1L, now.plusDays(2), now.plusDays(3)));
+
+        bookingIntervalIndex.onBookingLifecycleEvent(new BookingLifecycleEvent(BookingLifecycleEvent.Type.ENDED, booking));
+        assertFalse(bookingIntervalIndex.hasOverlap(1L, now.plusDays(2), now.plusDays(3)));
+    }
+
+    @Test
+    void lockItem_whenNoTransaction_thenIllegalStateException() {
+        assertThrows(IllegalStateException.class, () -> bookingIntervalIndex.lockItem(1L));
+    }
+
+    @Test
+    void lockItems_whenHeldByTransaction_thenOtherTransactionWaitsUntilCompletion() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookingIntervalIndex.lockItems(List.of(3L, 1L, 2L));
+            CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    bookingIntervalIndex.lockItem(2L);
+                    TransactionSynchronizationManager.getSynchronizations()
+                            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            });
+
+            assertThrows(TimeoutException.class, () -> other.get(200, TimeUnit.MILLISECONDS));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            other.get(5, TimeUnit.SECONDS);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void load_whenApprovedBookingsInRepository_thenIndexContainsThem() {
+        when(bookingRepository.findAllByStatusAndEndAfter(eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of(new Booking(1L, now.plusDays(1), now.plusDays(5), 1L, 2L, 1L, BookingStatus.APPROVED)));
+
+        bookingIntervalIndex.load();
+
+        assertTrue(bookingIntervalIndex.hasOverlap(1L, now.plusDays(2), now.plusDays(3)));
+    }
+
+    @Test
+    void overlaps_whenManyRandomIntervals_thenSameAsFullScan() {
+        Random random = new Random(42);
+        BookingIntervalIndex.IntervalTree tree = new BookingIntervalIndex.IntervalTree();
+        List<Booking> bookings = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            LocalDateTime start = now.plusHours(random.nextInt(1_000_000));
+            Booking booking = new Booking(id, start, start.plusHours(1 + random.nextInt(48)), 1L, 2L,
+                    1L,
+                    BookingStatus.APPROVED);
+            bookings.add(booking);
+            tree.add(id, booking.getStart(), booking.getEnd());
+        }
+        for (int i = 0; i < 2_000; i++) {
+            bookings.remove(random.nextInt(bookings.size()));
+        }
+        bookings.forEach(booking -> tree.add(booking.getId(), booking.getStart(), booking.getEnd()));
+        Set<Long> kept = bookings.stream().map(Booking::getId).collect(Collectors.toSet());
+        for (long id = 1; id <= 10_000; id++) {
+            if (!kept.contains(id)) {
+                tree.remove(id);
+            }
+        }
+
+        assertEquals(bookings.size(), tree.size());
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime start = now.plusHours(random.nextInt(1_000_000));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(48));
+            boolean expected = bookings.stream()
+                    .anyMatch(booking -> booking.getStart().isBefore(end) && start.isBefore(booking.getEnd()));
+
+            assertEquals(expected, tree.overlaps(start, end));
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingLifecycleSchedulerTest {
+    private LocalDateTime now;
+    private SimpleMeterRegistry meterRegistry;
+    private BookingLifecycleScheduler scheduler;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void createUnits() {
+        now = LocalDateTime.now();
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new BookingLifecycleScheduler(bookingRepository, eventPublisher, transactionManager,
+                meterRegistry, Duration.ofHours(24), Duration.ofSeconds(1), 512);
+    }
+
+    @Test
+    void fire_whenExpiryOfWaitingBooking_thenCanceledAndEventPublished() {
+        Booking booking = new Booking(1L, now.plusDays(1), now.plusDays(2), 1L, 2L, 1L, BookingStatus.WAITING);
+        when(bookingRepository.findAllById(Set.of(1L))).thenReturn(List.of(booking));
+        when(bookingRepository.changeStatus(1L, BookingStatus.WAITING, BookingStatus.CANCELED)).thenReturn(1);
+
+        scheduler.fire(List.of(new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.EXPIRED)));
+
+        assertEquals(BookingStatus.CANCELED, booking.getStatus());
+        verify(eventPublisher).publishEvent(new BookingLifecycleEvent(BookingLifecycleEvent.Type.EXPIRED, booking));
+    }
+
+    @Test
+    void fire_whenExpiryOfAlreadyApprovedBooking_thenNothingChanged() {
+        Booking booking = new Booking(1L, now.plusDays(1), now.plusDays(2), 1L, 2L, 1L, BookingStatus.APPROVED);
+        when(bookingRepository.findAllById(Set.of(1L))).thenReturn(List.of(booking));
+
+        scheduler.fire(List.of(new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.EXPIRED)));
+
+        verify(bookingRepository, never()).changeStatus(anyLong(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void fire_whenApprovedWhileExpiring_thenEventNotPublished() {
+        Booking booking = new Booking(1L, now.plusDays(1), now.plusDays(2), 1L, 2L, 1L, BookingStatus.WAITING);
+        when(bookingRepository.findAllById(Set.of(1L))).thenReturn(List.of(booking));
+        when(bookingRepository.changeStatus(1L, BookingStatus.WAITING, BookingStatus.CANCELED)).thenReturn(0);
+
+        scheduler.fire(List.of(new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.EXPIRED)));
+
+        assertEquals(BookingStatus.WAITING, booking.getStatus());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void fire_whenStartAndEndOfApprovedBooking_thenLifecycleEventsPublished() {
+        Booking booking = new Booking(1L, now, now.plusDays(2), 1L, 2L, 1L, BookingStatus.APPROVED);
+        when(bookingRepository.findAllById(Set.of(1L))).thenReturn(List.of(booking));
+
+        scheduler.fire(List.of(
+                new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.STARTED),
+                new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.ENDED)));
+
+        verify(eventPublisher).publishEvent(new BookingLifecycleEvent(BookingLifecycleEvent.Type.STARTED, booking));
+        verify(eventPublisher).publishEvent(new BookingLifecycleEvent(BookingLifecycleEvent.Type.ENDED, booking));
+    }
+
+    @Test
+    void fire_whenManyTimersDue_thenBookingsLoadedInBatches() {
+        List<BookingLifecycleScheduler.Timer> timers = LongStream.rangeClosed(1, 1200)
+                .mapToObj(id -> new BookingLifecycleScheduler.Timer(id, BookingLifecycleEvent.Type.EXPIRED))
+                .collect(Collectors.toList());
+        List<Integer> batchSizes = new ArrayList<>();
+        when(bookingRepository.findAllById(any())).thenAnswer(invocation -> {
+            batchSizes.add(((Collection<?>) invocation.getArgument(0)).size());
+            return List.of();
+        });
+
+        scheduler.fire(timers);
+
+        assertEquals(List.of(500, 500, 200), batchSizes);
+    }
+
+    @Test
+    void fire_whenBatchFails_thenItsTimersScheduledAgain() {
+        when(bookingRepository.findAllById(Set.of(1L))).thenThrow(new IllegalStateException("db is down"));
+
+        scheduler.fire(List.of(new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.EXPIRED)));
+
+        assertEquals(1.0, meterRegistry.get("shareit.booking.lifecycle.timers").gauge().value());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void fire_whenExpiredEventFails_thenCancellationRolledBackAndTimerScheduledAgain() {
+        Booking booking = new Booking(1L, now.plusDays(1), now.plusDays(2), 1L, 2L, 1L, BookingStatus.WAITING);
+        when(bookingRepository.findAllById(Set.of(1L))).thenReturn(List.of(booking));
+        when(bookingRepository.changeStatus(1L, BookingStatus.WAITING, BookingStatus.CANCELED)).thenReturn(1);
+        doThrow(new IllegalStateException("listener failed")).when(eventPublisher).publishEvent(any(Object.class));
+
+        scheduler.fire(List.of(new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.EXPIRED)));
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        assertEquals(1.0, meterRegistry.get("shareit.booking.lifecycle.timers").gauge().value());
+    }
+
+    @Test
+    void fire_whenBatchFailsOnLastAttempt_thenTimersDropped() {
+        when(bookingRepository.findAllById(Set.of(1L))).thenThrow(new IllegalStateException("db is down"));
+
+        scheduler.fire(List.of(new BookingLifecycleScheduler.Timer(1L, BookingLifecycleEvent.Type.EXPIRED, 4)));
+
+        assertEquals(0.0, meterRegistry.get("shareit.booking.lifecycle.timers").gauge().value());
+    }
+
+    @Test
+    void fire_whenNoTimers_thenRepositoryNotQueried() {
+        scheduler.fire(List.of());
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+}
@@ -16,6 +16,7 @@ class BookingMapperTest {
     @Test
     void mapNewBookingFromDto_whenInvoke_thenReturnBooking() {
         long userId = 1L;
+        long ownerId = 3L;
         BookingDtoIn bookingDtoIn = new BookingDtoIn(
                 1L,
                 LocalDateTime.now().plusDays(1),
@@ -25,9 +26,10 @@ class BookingMapperTest {
                 "status"
         );
 
-        Booking result = BookingMapper.mapNewBookingFromDto(bookingDtoIn, userId);
+        Booking result = BookingMapper.mapNewBookingFromDto(bookingDtoIn, userId, ownerId);
 
         assertEquals(userId, result.getBookerId());
+        assertEquals(ownerId, result.getOwnerId());
         assertEquals(BookingStatus.WAITING, result.getStatus());
     }
 
@@ -39,6 +41,7 @@ class BookingMapperTest {
                 LocalDateTime.now().plusDays(10),
                 1L,
                 2L,
+                1L,
                 BookingStatus.APPROVED);
         User user = new User();
         user.setId(10L);
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingPhaseMaintainerTest {
+    private LocalDateTime now;
+    private BookingPhaseMaintainer maintainer;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void createUnits() {
+        now = LocalDateTime.now();
+        maintainer = new BookingPhaseMaintainer(bookingRepository, transactionManager, Duration.ofSeconds(30), 2);
+    }
+
+    @Test
+    void advance_whenDueBookingsSpanSeveralBatches_thenAllShiftedBatchByBatch() {
+        when(bookingRepository.findIdsByPhaseAndStartReached(BookingPhase.FUTURE, now, PageRequest.of(0, 2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(bookingRepository.findIdsByPhaseAndEndReached(BookingPhase.CURRENT, now, PageRequest.of(0, 2)))
+                .thenReturn(List.of(1L));
+
+        assertEquals(4, maintainer.advance(now));
+
+        verify(bookingRepository).changePhase(List.of(1L, 2L), BookingPhase.FUTURE, BookingPhase.CURRENT);
+        verify(bookingRepository).changePhase(List.of(3L), BookingPhase.FUTURE, BookingPhase.CURRENT);
+        verify(bookingRepository).changePhase(List.of(1L), BookingPhase.CURRENT, BookingPhase.PAST);
+    }
+
+    @Test
+    void advance_whenNothingDue_thenNothingUpdated() {
+        when(bookingRepository.findIdsByPhaseAndStartReached(BookingPhase.FUTURE, now, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+        when(bookingRepository.findIdsByPhaseAndEndReached(BookingPhase.CURRENT, now, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+
+        assertEquals(0, maintainer.advance(now));
+
+        verify(bookingRepository, never()).changePhase(anyCollection(), any(), any());
+    }
+
+    @Test
+    void recheckFromLastRun_whenNoRunCompleted_thenEveryFutureBookingRechecked() {
+        assertTrue(maintainer.recheckFromLastRun(now).isBefore(now.minusYears(50)));
+    }
+
+    @Test
+    void recheckFromLastRun_whenLastRunOlderThanWindow_thenRecheckReachesBeforeIt() {
+        when(bookingRepository.findIdsByPhaseAndStartReached(any(), any(), any())).thenReturn(List.of());
+        when(bookingRepository.findIdsByPhaseAndEndReached(any(), any(), any())).thenReturn(List.of());
+        maintainer.advance(now.minusHours(1));
+
+        assertEquals(BookingPhaseMaintainer.recheckFrom(now.minusHours(1)), maintainer.recheckFromLastRun(now));
+    }
+
+    @Test
+    void recheckFromLastRun_whenRunFailed_thenLastCompletedRunKept() {
+        when(bookingRepository.findIdsByPhaseAndStartReached(any(), any(), any()))
+                .thenReturn(List.of())
+                .thenThrow(new IllegalStateException("db is down"));
+        when(bookingRepository.findIdsByPhaseAndEndReached(any(), any(), any())).thenReturn(List.of());
+        maintainer.advance(now.minusHours(1));
+
+        assertThrows(IllegalStateException.class, () -> maintainer.advance(now));
+
+        assertEquals(BookingPhaseMaintainer.recheckFrom(now.minusHours(1)), maintainer.recheckFromLastRun(now));
+    }
+
+    @Test
+    void create_whenIntervalLongerThanRecheckWindow_thenThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new BookingPhaseMaintainer(
+                bookingRepository, transactionManager, BookingPhaseMaintainer.RECHECK_WINDOW, 500));
+    }
+
+    @Test
+    void of_whenTimeAroundBooking_thenReturnPhase() {
+        assertEquals(BookingPhase.FUTURE, BookingPhase.of(now.plusDays(1), now.plusDays(2), now));
+        assertEquals(BookingPhase.CURRENT, BookingPhase.of(now.minusDays(1), now.plusDays(1), now));
+        assertEquals(BookingPhase.PAST, BookingPhase.of(now.minusDays(2), now.minusDays(1), now));
+    }
+
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -15,10 +16,12 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.pagination.SeekCursor.FIRST;
 
 @DataJpaTest
 class BookingRepositoryTest {
@@ -40,6 +43,7 @@ class BookingRepositoryTest {
                 LocalDateTime.now().plusDays(11),
                 1L,
                 2L,
+                1L,
                 BookingStatus.WAITING);
         Booking booking2 = new Booking(
                 0L,
@@ -47,6 +51,7 @@ class BookingRepositoryTest {
                 LocalDateTime.now().plusDays(22),
                 2L,
                 2L,
+                1L,
                 BookingStatus.APPROVED);
         Item item1 = new Item(0L, "item1", "desc1", true, 1L, null);
         Item item2 = new Item(0L, "item2", "desc2", true, 1L, null);
@@ -63,245 +68,272 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findByBookerIdOrderByStartDesc_whenBookingNotFound_thenReturnEmptyList() {
+    void findAllDtoByBooker_whenBookingNotFound_thenReturnEmptyList() {
         long bookerId = 100L;
 
-        Collection<Booking> result = bookingRepository.findByBookerIdOrderByStartDesc(
-                bookerId, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findAllDtoByBooker(
+                bookerId, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertTrue(result.isEmpty());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdOrderByStartDesc_whenBookingFound_thenReturnSortListByStart() {
+    void findAllDtoByBooker_whenBookingFound_thenReturnSortListByStart() {
         long bookerId = 2L;
 
-        Collection<Booking> result = bookingRepository.findByBookerIdOrderByStartDesc(
-                bookerId, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findAllDtoByBooker(
+                bookerId, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(2, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllDtoByBooker_whenCursorIsFirstBooking_thenReturnOnlyNextBooking() {
+        long bookerId = 2L;
+        BookingDtoFullOut first = bookingRepository.findAllDtoByBooker(
+                bookerId, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(1)).get(0);
+
+        Collection<BookingDtoFullOut> result = bookingRepository.findAllDtoByBooker(
+                bookerId, first.getStart(), first.getId(), Pageable.ofSize(10));
+
+        assertEquals(1, result.size());
+        assertEquals(1, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdAndStartAfterOrderByStartDesc_whenAfterStartNotFound_thenReturnEmptyList() {
+    void findFutureDtoByBooker_whenAfterStartNotFound_thenReturnEmptyList() {
         long bookerId = 2L;
         LocalDateTime start = LocalDateTime.now().plusDays(100);
 
-        Collection<Booking> result = bookingRepository.findByBookerIdAndStartAfterOrderByStartDesc(
-                bookerId, start, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findFutureDtoByBooker(
+                bookerId, start, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertTrue(result.isEmpty());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdAndStartAfterOrderByStartDesc_whenAfterStartBetweenBookings_thenReturnListSizeOne() {
+    void findFutureDtoByBooker_whenAfterStartBetweenBookings_thenReturnListSizeOne() {
         long bookerId = 2L;
         LocalDateTime start = LocalDateTime.now().plusDays(3);
 
-        Collection<Booking> result = bookingRepository.findByBookerIdAndStartAfterOrderByStartDesc(
-                bookerId, start, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findFutureDtoByBooker(
+                bookerId, start, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(1, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdAndStartAfterOrderByStartDesc_whenAfterStartBeforeBookings_thenReturnListSizeTwo() {
+    void findFutureDtoByBooker_whenAfterStartBeforeBookings_thenReturnListSizeTwo() {
         long bookerId = 2L;
         LocalDateTime start = LocalDateTime.now();
 
-        Collection<Booking> result = bookingRepository.findByBookerIdAndStartAfterOrderByStartDesc(
-                bookerId, start, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findFutureDtoByBooker(
+                bookerId, start, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(2, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
-        assertEquals(1, new ArrayList<>(result).get(1).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
+        assertEquals(1, new ArrayList<>(result).get(1).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc_whenInvoke_ReturnBooking2() {
+    void findCurrentDtoByBooker_whenInvoke_ReturnBooking1() {
         long bookerId = 2L;
-        LocalDateTime start = LocalDateTime.now().plusDays(3);
-        LocalDateTime end = LocalDateTime.now().plusDays(10);
+        LocalDateTime time = LocalDateTime.now().plusDays(3);
+        advancePhases(time);
 
-        Collection<Booking> result = bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                bookerId, start, end, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findCurrentDtoByBooker(
+                bookerId, time, BookingPhaseMaintainer.recheckFrom(time),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(1, result.size());
-        assertEquals(1, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(1, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdAndEndIsBeforeOrderByStartDesc_whenEndAfterEndBookingsInBd_thenReturnAllBookings() {
+    void findPastDtoByBooker_whenEndAfterEndBookingsInBd_thenReturnAllBookings() {
         long bookerId = 2;
         LocalDateTime end = LocalDateTime.now().plusDays(50);
+        advancePhases(end);
 
-        Collection<Booking> result = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(
-                bookerId, end, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findPastDtoByBooker(
+                bookerId, end, BookingPhaseMaintainer.recheckFrom(end),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(2, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
-        assertEquals(1, new ArrayList<>(result).get(1).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
+        assertEquals(1, new ArrayList<>(result).get(1).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdAndEndIsBeforeOrderByStartDesc_whenEndBetweenEndBookingsInBd_thenReturnBooking1() {
+    void findPastDtoByBooker_whenEndBetweenEndBookingsInBd_thenReturnBooking1() {
         long bookerId = 2;
         LocalDateTime end = LocalDateTime.now().plusDays(15);
+        advancePhases(end);
 
-        Collection<Booking> result = bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(
-                bookerId, end, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findPastDtoByBooker(
+                bookerId, end, BookingPhaseMaintainer.recheckFrom(end),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(1, result.size());
-        assertEquals(1, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(1, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findByBookerIdAndStatusEqualsOrderByStartDesc_whenStatusIsApproved_thenReturnBooking2() {
+    void findStatusDtoByBooker_whenStatusIsApproved_thenReturnBooking2() {
         long bookerId = 2L;
         BookingStatus status = BookingStatus.APPROVED;
 
-        Collection<Booking> result = bookingRepository.findByBookerIdAndStatusEqualsOrderByStartDesc(
-                bookerId, status, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findStatusDtoByBooker(
+                bookerId, status, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(1, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findAllBookingsForOwner_whenBookerRequest_thenReturnEmptyList() {
+    void findAllDtoByOwner_whenBookerRequest_thenReturnEmptyList() {
         long bookerId = 2L;
 
-        Collection<Booking> result = bookingRepository.findAllBookingsForOwner(
-                bookerId, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findAllDtoByOwner(
+                bookerId, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertTrue(result.isEmpty());
     }
 
     @DirtiesContext
     @Test
-    void findAllBookingsForOwner_whenOwnerRequest_thenReturnListSizeTwo() {
+    void findAllDtoByOwner_whenOwnerRequest_thenReturnListSizeTwo() {
         long ownerId = 1L;
 
-        Collection<Booking> result = bookingRepository.findAllBookingsForOwner(
-                ownerId, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findAllDtoByOwner(
+                ownerId, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(2, result.size());
     }
 
     @DirtiesContext
     @Test
-    void findCurrentBookingsForOwner_whenTimeCorrectForBooking2_thenReturnBooking2() {
+    void findCurrentDtoByOwner_whenTimeCorrectForBooking2_thenReturnBooking2() {
         long ownerId = 1L;
         LocalDateTime time = LocalDateTime.now().plusDays(18);
+        advancePhases(time);
 
-        Collection<Booking> result = bookingRepository.findCurrentBookingsForOwner(
-                ownerId, time, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findCurrentDtoByOwner(
+                ownerId, time, BookingPhaseMaintainer.recheckFrom(time),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(1, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findCurrentBookingsForOwner_whenTimeCorrectForAllBookings_thenReturnBookings() {
+    void findCurrentDtoByOwner_whenTimeCorrectForAllBookings_thenReturnBookings() {
         long ownerId = 1L;
         LocalDateTime time = LocalDateTime.now().plusDays(10);
+        advancePhases(time);
 
-        Collection<Booking> result = bookingRepository.findCurrentBookingsForOwner(
-                ownerId, time, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findCurrentDtoByOwner(
+                ownerId, time, BookingPhaseMaintainer.recheckFrom(time),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(2, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
-        assertEquals(1, new ArrayList<>(result).get(1).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
+        assertEquals(1, new ArrayList<>(result).get(1).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findPastBookingsForOwner_whenTimeBeforeEndBooking2_thenReturnBooking1() {
+    void findPastDtoByOwner_whenTimeBeforeEndBooking2_thenReturnBooking1() {
         long ownerId = 1L;
         LocalDateTime time = LocalDateTime.now().plusDays(20);
+        advancePhases(time);
 
-        Collection<Booking> result = bookingRepository.findPastBookingsForOwner(
-                ownerId, time, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findPastDtoByOwner(
+                ownerId, time, BookingPhaseMaintainer.recheckFrom(time),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(1, result.size());
-        assertEquals(1, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(1, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findPastBookingsForOwner_whenTimeAfterEndBooking2_thenReturnAllBookings() {
+    void findPastDtoByOwner_whenTimeAfterEndBooking2_thenReturnAllBookings() {
         long ownerId = 1L;
         LocalDateTime time = LocalDateTime.now().plusDays(25);
+        advancePhases(time);
 
-        Collection<Booking> result = bookingRepository.findPastBookingsForOwner(
-                ownerId, time, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findPastDtoByOwner(
+                ownerId, time, BookingPhaseMaintainer.recheckFrom(time),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(2, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
-        assertEquals(1, new ArrayList<>(result).get(1).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
+        assertEquals(1, new ArrayList<>(result).get(1).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findFutureBookingsForOwner_whenTimeAfterAllBookings_thenReturnEmptyList() {
+    void findFutureDtoByOwner_whenTimeAfterAllBookings_thenReturnEmptyList() {
         long ownerId = 1L;
         LocalDateTime time = LocalDateTime.now().plusDays(25);
 
-        Collection<Booking> result = bookingRepository.findFutureBookingsForOwner(
-                ownerId, time, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findFutureDtoByOwner(
+                ownerId, time, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertTrue(result.isEmpty());
     }
 
     @DirtiesContext
     @Test
-    void findFutureBookingsForOwner_whenTimeBeforeAllBookings_thenReturnAllBookings() {
+    void findFutureDtoByOwner_whenTimeBeforeAllBookings_thenReturnAllBookings() {
         long ownerId = 1L;
         LocalDateTime time = LocalDateTime.now();
 
-        Collection<Booking> result = bookingRepository.findFutureBookingsForOwner(
-                ownerId, time, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findFutureDtoByOwner(
+                ownerId, time, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(2, result.size());
-        assertEquals(2, new ArrayList<>(result).get(0).getItemId());
-        assertEquals(1, new ArrayList<>(result).get(1).getItemId());
+        assertEquals(2, new ArrayList<>(result).get(0).getItem().getId());
+        assertEquals(1, new ArrayList<>(result).get(1).getItem().getId());
     }
 
     @DirtiesContext
     @Test
-    void findStatusBookingsForOwner_whenBookerRequest_returnEmptyList() {
+    void findStatusDtoByOwner_whenBookerRequest_returnEmptyList() {
         long bookerId = 2L;
-        String status = BookingStatus.WAITING.toString();
+        BookingStatus status = BookingStatus.WAITING;
 
-        Collection<Booking> result = bookingRepository.findStatusBookingsForOwner(
-                bookerId, status, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findStatusDtoByOwner(
+                bookerId, status, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertTrue(result.isEmpty());
     }
 
     @DirtiesContext
     @Test
-    void findStatusBookingsForOwner_whenOwnerRequest_returnBooking1() {
+    void findStatusDtoByOwner_whenOwnerRequest_returnBooking1() {
         long ownerId = 1L;
-        String status = BookingStatus.WAITING.toString();
+        BookingStatus status = BookingStatus.WAITING;
 
-        Collection<Booking> result = bookingRepository.findStatusBookingsForOwner(
-                ownerId, status, Pageable.ofSize(10)).getContent();
+        Collection<BookingDtoFullOut> result = bookingRepository.findStatusDtoByOwner(
+                ownerId, status, FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
 
         assertEquals(1, result.size());
-        assertEquals(1, new ArrayList<>(result).get(0).getItemId());
+        assertEquals(1, new ArrayList<>(result).get(0).getItem().getId());
     }
 
     @DirtiesContext
@@ -374,4 +406,136 @@ class BookingRepositoryTest {
         assertEquals(1, result.get().getId());
     }
 
-}
\ No newline at end of file
+    @DirtiesContext
+    @Test
+    void countByBookerIdAndStatus_whenBookingsFound_thenReturnCountOfStatus() {
+        assertEquals(1, bookingRepository.countByBookerIdAndStatus(2L, BookingStatus.WAITING));
+        assertEquals(0, bookingRepository.countByBookerIdAndStatus(2L, BookingStatus.REJECTED));
+    }
+
+    @DirtiesContext
+    @Test
+    void countByOwnerIdAndStatus_whenBookingsFound_thenReturnCountOfStatus() {
+        assertEquals(1, bookingRepository.countByOwnerIdAndStatus(1L, BookingStatus.APPROVED));
+        assertEquals(0, bookingRepository.countByOwnerIdAndStatus(2L, BookingStatus.APPROVED));
+    }
+
+    @DirtiesContext
+    @Test
+    void save_whenNewBooking_thenCreatedIsSet() {
+        Booking booking = bookingRepository.findById(1L).orElseThrow();
+
+        assertTrue(booking.getCreated() != null && !booking.getCreated().isAfter(LocalDateTime.now()));
+    }
+
+    @DirtiesContext
+    @Test
+    void changeStatus_whenStatusIsExpected_thenUpdatedAndVersionBumped() {
+        assertEquals(1, bookingRepository.changeStatus(1L, BookingStatus.WAITING, BookingStatus.CANCELED));
+        assertEquals(0, bookingRepository.changeStatus(2L, BookingStatus.WAITING, BookingStatus.CANCELED));
+
+        assertEquals(BookingStatus.CANCELED, bookingRepository.findStatusById(1L));
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findStatusById(2L));
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByStatusAndIdGreaterThanOrderById_whenWaitingBookings_thenReturnBatchAfterId() {
+        assertEquals(1, bookingRepository.findAllByStatusAndIdGreaterThanOrderById(
+                BookingStatus.WAITING, 0L, Pageable.ofSize(10)).size());
+        assertTrue(bookingRepository.findAllByStatusAndIdGreaterThanOrderById(
+                BookingStatus.WAITING, 1L, Pageable.ofSize(10)).isEmpty());
+    }
+
+    @DirtiesContext
+    @Test
+    void findNextBookingsByItems_whenBookingsFound_thenReturnFullEntityPerItem() {
+        List<Booking> result = bookingRepository.findNextBookingsByItems(List.of(1L, 2L), LocalDateTime.now());
+
+        assertEquals(2, result.size());
+        assertTrue(result.stream().allMatch(booking -> booking.getOwnerId() == 1L));
+    }
+
+    @DirtiesContext
+    @Test
+    void findLastBookingsByItems_whenBookingsEnded_thenReturnFullEntityPerItem() {
+        List<Booking> result = bookingRepository.findLastBookingsByItems(
+                List.of(1L, 2L),
+                LocalDateTime.now().plusDays(15));
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getItemId());
+        assertEquals(1L, result.get(0).getOwnerId());
+    }
+
+    @DirtiesContext
+    @Test
+    void save_whenNewBooking_thenPhaseIsSetFromDates() {
+        Booking booking = bookingRepository.save(new Booking(
+                0L,
+                LocalDateTime.now().minusDays(1),
+                LocalDateTime.now().plusDays(1),
+                1L,
+                2L,
+                1L,
+                BookingStatus.APPROVED));
+
+        assertEquals(BookingPhase.CURRENT, booking.getPhase());
+        assertEquals(BookingPhase.FUTURE, bookingRepository.findById(1L).orElseThrow().getPhase());
+    }
+
+    @DirtiesContext
+    @Test
+    void findCurrentDtoByBooker_whenPhaseLagsWithinRecheckWindow_thenReturnStartedBooking() {
+        long bookerId = 2L;
+        LocalDateTime time = LocalDateTime.now().plusDays(1).plusMinutes(1);
+
+        Collection<BookingDtoFullOut> result = bookingRepository.findCurrentDtoByBooker(
+                bookerId, time, BookingPhaseMaintainer.recheckFrom(time),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
+
+        assertEquals(1, result.size());
+        assertEquals(1, new ArrayList<>(result).get(0).getItem().getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findPastDtoByOwner_whenCurrentPhaseLags_thenReturnEndedBooking() {
+        long ownerId = 1L;
+        LocalDateTime time = LocalDateTime.now().plusDays(12);
+        advancePhases(LocalDateTime.now().plusDays(10));
+
+        Collection<BookingDtoFullOut> result = bookingRepository.findPastDtoByOwner(
+                ownerId, time, BookingPhaseMaintainer.recheckFrom(time),
+                FIRST.getTime(), FIRST.getId(), Pageable.ofSize(10));
+
+        assertEquals(1, result.size());
+        assertEquals(1, new ArrayList<>(result).get(0).getItem().getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void changePhase_whenPhaseIsExpected_thenUpdatedOnlyMatchingBookings() {
+        assertEquals(2, bookingRepository.changePhase(List.of(1L, 2L), BookingPhase.FUTURE, BookingPhase.CURRENT));
+        assertEquals(0, bookingRepository.changePhase(List.of(1L, 2L), BookingPhase.FUTURE, BookingPhase.CURRENT));
+        assertEquals(List.of(1L), bookingRepository.findIdsByPhaseAndEndReached(
+                BookingPhase.CURRENT, LocalDateTime.now().plusDays(15), Pageable.ofSize(10)));
+    }
+
+    /**
+     * Runs the phase maintenance as it would have run at the given moment.
+     */
+    private void advancePhases(LocalDateTime time) {
+        List<Long> started = bookingRepository.findIdsByPhaseAndStartReached(
+                BookingPhase.FUTURE, time, Pageable.ofSize(10));
+        if (!started.isEmpty()) {
+            bookingRepository.changePhase(started, BookingPhase.FUTURE, BookingPhase.CURRENT);
+        }
+        List<Long> ended = bookingRepository.findIdsByPhaseAndEndReached(
+                BookingPhase.CURRENT, time, Pageable.ofSize(10));
+        if (!ended.isEmpty()) {
+            bookingRepository.changePhase(ended, BookingPhase.CURRENT, BookingPhase.PAST);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+    private static final long START = 1_000_000L;
+
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, START);
+
+    @Test
+    void advance_whenDeadlineNotReached_thenNothingExpires() {
+        wheel.schedule("a", START + 250);
+
+        assertTrue(wheel.advance(START + 200).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("a"), wheel.advance(START + 300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_whenDeadlineBeyondOneTurn_thenExpiresOnlyAfterRemainingRounds() {
+        wheel.schedule("far", START + 100 * 8 * 3 + 100);
+        wheel.schedule("near", START + 100);
+
+        assertEquals(List.of("near"), wheel.advance(START + 100 * 8 * 3));
+        assertEquals(List.of("far"), wheel.advance(START + 100 * 8 * 3 + 100));
+    }
+
+    @Test
+    void advance_whenDeadlineInPast_thenExpiresOnNextTick() {
+        wheel.advance(START + 1_000);
+        wheel.schedule("late", START);
+
+        assertEquals(List.of("late"), wheel.advance(START + 1_100));
+    }
+
+    @Test
+    void advance_whenManyRandomTimers_thenEachExpiresInTickOfItsDeadline() {
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = START + random.nextInt(100_000);
+            deadlines.add(deadline);
+            wheel.schedule(String.valueOf(deadline), deadline);
+        }
+        for (long now = START; now <= START + 100_000; now += 100) {
+            for (String expired : wheel.advance(now)) {
+                long deadline = Long.parseLong(expired);
+                assertTrue(deadline <= now && now - deadline < 100, expired + " at " + now);
+                deadlines.remove(deadline);
+            }
+        }
+        assertTrue(deadlines.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void create_whenWheelSizeNotPowerOfTwo_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(100, 10, START));
+    }
+
+}
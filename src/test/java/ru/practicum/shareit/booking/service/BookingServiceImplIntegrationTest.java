@@ -1,30 +1,59 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.BookingExportFormat;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingPhase;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingApprovalDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
+import ru.practicum.shareit.booking.dto.IntervalDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
@@ -41,6 +70,15 @@ class BookingServiceImplIntegrationTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Autowired
+    private ItemService itemService;
+
     @BeforeEach
     void createdUnite() {
         userRepository.save(new User(0L, "owner", "owner@ru"));
@@ -54,7 +92,7 @@ class BookingServiceImplIntegrationTest {
     @Test
     void getBookingInfo_whenUserIsNotOwnerOrBooker_thenReturnObjectNotFoundException() {
         long userId = 3L;
-        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, BookingStatus.WAITING);
+        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking);
 
         assertThrows(ObjectNotFoundException.class, () -> bookingService.getBookingInfo(userId, 1L));
@@ -64,7 +102,7 @@ class BookingServiceImplIntegrationTest {
     @Test
     void getBookingInfo_whenUserIsOwner_thenReturnBookingInfo() {
         long userId = 1L;
-        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, BookingStatus.WAITING);
+        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking);
 
         BookingDtoFullOut result = bookingService.getBookingInfo(userId, 1L);
@@ -78,7 +116,7 @@ class BookingServiceImplIntegrationTest {
     @Test
     void getBookingInfo_whenUserIsBooker_thenReturnBookingInfo() {
         long userId = 2L;
-        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, BookingStatus.WAITING);
+        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking);
 
         BookingDtoFullOut result = bookingService.getBookingInfo(userId, 1L);
@@ -93,8 +131,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsBooker_whenGetAllBookings_thenReturnAllBookings() {
         String state = "ALL";
         long userId = 2L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(10), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(10), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -108,8 +146,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsBooker_whenGetCurrentBookings_thenReturnBooking1() {
         String state = "CURRENT";
         long userId = 2L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(10), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(10), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -124,8 +162,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsBooker_whenGetPastBookings_thenReturnBooking1() {
         String state = "PAST";
         long userId = 2L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -140,8 +178,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsBooker_whenGetFutureBookings_thenReturnBooking2() {
         String state = "FUTURE";
         long userId = 2L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -156,8 +194,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsBooker_whenGetWaitingBookings_thenReturnBothBookings() {
         String state = "WAITING";
         long userId = 2L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -173,9 +211,9 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsBooker_whenGetRejectedBookings_thenReturnBooking3() {
         String state = "REJECTED";
         long userId = 2L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
-        Booking booking3 = new Booking(0L, LocalDateTime.now().plusDays(16), LocalDateTime.now().plusDays(21), 2L, 2L, BookingStatus.REJECTED);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking3 = new Booking(0L, LocalDateTime.now().plusDays(16), LocalDateTime.now().plusDays(21), 2L, 2L, 1L, BookingStatus.REJECTED);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
         bookingRepository.save(booking3);
@@ -191,8 +229,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsOwner_whenGetAllBookings_thenReturnAllBookings() {
         String state = "ALL";
         long userId = 1L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(10), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(10), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -206,8 +244,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsOwner_whenGetCurrentBookings_thenReturnBooking1() {
         String state = "CURRENT";
         long userId = 1L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(10), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(10), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -222,8 +260,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsOwner_whenGetPastBookings_thenReturnBooking1() {
         String state = "PAST";
         long userId = 1L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -238,8 +276,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsOwner_whenGetFutureBookings_thenReturnBooking2() {
         String state = "FUTURE";
         long userId = 1L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -254,8 +292,8 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsOwner_whenGetWaitingBookings_thenReturnBothBookings() {
         String state = "WAITING";
         long userId = 1L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
 
@@ -271,9 +309,9 @@ class BookingServiceImplIntegrationTest {
     void getListOfBookingsOwner_whenGetRejectedBookings_thenReturnBooking3() {
         String state = "REJECTED";
         long userId = 1L;
-        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, BookingStatus.WAITING);
-        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, BookingStatus.WAITING);
-        Booking booking3 = new Booking(0L, LocalDateTime.now().plusDays(16), LocalDateTime.now().plusDays(21), 2L, 2L, BookingStatus.REJECTED);
+        Booking booking1 = new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking2 = new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 2L, 1L, BookingStatus.WAITING);
+        Booking booking3 = new Booking(0L, LocalDateTime.now().plusDays(16), LocalDateTime.now().plusDays(21), 2L, 2L, 1L, BookingStatus.REJECTED);
         bookingRepository.save(booking1);
         bookingRepository.save(booking2);
         bookingRepository.save(booking3);
@@ -284,6 +322,30 @@ class BookingServiceImplIntegrationTest {
         assertEquals(3L, new ArrayList<>(result).get(0).getId());
     }
 
+    @DirtiesContext
+    @ParameterizedTest
+    @EnumSource(BookingState.class)
+    void getListOfBookingsBooker_whenAnyState_thenQueryCountIsConstant(BookingState state) {
+        long userId = 2L;
+        saveBookingsForEveryState();
+
+        long queries = countQueries(() -> bookingService.getListOfBookingsBooker(userId, state.toString(), 0, 10));
+
+        assertEquals(2, queries);
+    }
+
+    @DirtiesContext
+    @ParameterizedTest
+    @EnumSource(BookingState.class)
+    void getListOfBookingsOwner_whenAnyState_thenQueryCountIsConstant(BookingState state) {
+        long userId = 1L;
+        saveBookingsForEveryState();
+
+        long queries = countQueries(() -> bookingService.getListOfBookingsOwner(userId, state.toString(), 0, 10));
+
+        assertEquals(3, queries);
+    }
+
     @DirtiesContext
     @Test
     void createBooking_whenInvoke_thenReturnNewBooking() {
@@ -297,11 +359,112 @@ class BookingServiceImplIntegrationTest {
         assertEquals(1, bookingRepository.findAll().size());
     }
 
+    @DirtiesContext
+    @Test
+    void createBookings_whenSomeEntriesInvalid_thenValidOnesInsertedAndEachReported() {
+        long bookerId = 2L;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingBatchDtoIn batch = new BookingBatchDtoIn(List.of(
+                new BookingDtoIn(0L, start, start.plusDays(2), 1L, 0L, null),
+                new BookingDtoIn(0L, start, start.plusDays(2), 99L, 0L, null),
+                new BookingDtoIn(0L, start, start.plusDays(2), 2L, 0L, null),
+                new BookingDtoIn(0L, start.plusDays(1), start.plusDays(3), 1L, 0L, null),
+                new BookingDtoIn(0L, start.plusDays(2), start.plusDays(4), 1L, 0L, null)));
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(batch, bookerId);
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertEquals(BookingStatus.WAITING.toString(), results.get(0).getBooking().getStatus());
+        assertEquals(BookingStatus.WAITING.toString(), results.get(4).getBooking().getStatus());
+        assertTrue(results.get(1).getError() != null && results.get(1).getBooking() == null);
+        assertTrue(results.get(2).getError() != null && results.get(2).getBooking() == null);
+        assertTrue(results.get(3).getError() != null && results.get(3).getBooking() == null);
+        List<Booking> saved = bookingRepository.findAll();
+        assertEquals(2, saved.size());
+        saved.forEach(booking -> {
+            assertEquals(1L, booking.getOwnerId());
+            assertEquals(BookingPhase.FUTURE, booking.getPhase());
+            assertTrue(booking.getCreated() != null);
+        });
+        assertEquals(results.get(0).getBooking().getId(), saved.get(0).getId());
+        assertEquals(Optional.of(2L), bookingService.countBookingsBooker(bookerId, "WAITING"));
+    }
+
+    @DirtiesContext
+    @Test
+    void createBookings_whenEntryHasZeroLength_thenOnlyThatEntryRejected() {
+        long bookerId = 2L;
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        BookingBatchDtoIn batch = new BookingBatchDtoIn(List.of(
+                new BookingDtoIn(0L, start, start.plusDays(2), 1L, 0L, null),
+                new BookingDtoIn(0L, start.plusDays(5), start.plusDays(5), 1L, 0L, null),
+                new BookingDtoIn(0L, start.plusDays(6), start.plusDays(8), 1L, 0L, null)));
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(batch, bookerId);
+
+        assertEquals(BookingStatus.WAITING.toString(), results.get(0).getBooking().getStatus());
+        assertTrue(results.get(1).getError() != null && results.get(1).getBooking() == null);
+        assertEquals(BookingStatus.WAITING.toString(), results.get(2).getBooking().getStatus());
+        assertEquals(2, bookingRepository.count());
+    }
+
+    @DirtiesContext
+    @Test
+    void createBookings_whenEntryOverlapsApprovedBooking_thenEntryRejected() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        bookingService.createBooking(new BookingDtoIn(0L, start, start.plusDays(5), 1L, 2L, null), 2L);
+        bookingService.getApprovedBooking(1L, 1L, "true");
+        BookingBatchDtoIn batch = new BookingBatchDtoIn(List.of(
+                new BookingDtoIn(0L, start.plusDays(4), start.plusDays(8), 1L, 0L, null),
+                new BookingDtoIn(0L, start.plusDays(5), start.plusDays(8), 1L, 0L, null)));
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(batch, 3L);
+
+        assertTrue(results.get(0).getError() != null);
+        assertEquals(BookingStatus.WAITING.toString(), results.get(1).getBooking().getStatus());
+    }
+
+    @DirtiesContext
+    @Test
+    void approveBookings_whenApprovalsOverlap_thenOnlyNonOverlappingApproved() {
+        long ownerId = 1L;
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        bookingService.createBooking(new BookingDtoIn(0L, start.plusDays(10), start.plusDays(12), 1L, 2L, null), 2L);
+        bookingService.createBooking(new BookingDtoIn(0L, start.plusDays(11), start.plusDays(13), 1L, 2L, null), 2L);
+        bookingService.getApprovedBooking(1L, ownerId, "true");
+        bookingService.createBooking(new BookingDtoIn(0L, start, start.plusDays(2), 1L, 2L, null), 2L);
+        bookingService.createBooking(new BookingDtoIn(0L, start.plusDays(1), start.plusDays(3), 1L, 2L, null), 2L);
+        bookingService.createBooking(new BookingDtoIn(0L, start.plusDays(2), start.plusDays(4), 1L, 2L, null), 2L);
+
+        List<BookingBatchResultDto> results = bookingService.approveBookings(new BookingApprovalDtoIn(List.of(
+                new BookingDecisionDto(3L, true),
+                new BookingDecisionDto(4L, true),
+                new BookingDecisionDto(5L, true),
+                new BookingDecisionDto(2L, true),
+                new BookingDecisionDto(1L, false))), ownerId);
+
+        assertEquals(BookingStatus.APPROVED.toString(), results.get(0).getBooking().getStatus());
+        assertTrue(results.get(1).getError() != null && results.get(1).getBooking() == null);
+        assertEquals(BookingStatus.APPROVED.toString(), results.get(2).getBooking().getStatus());
+        assertTrue(results.get(3).getError() != null && results.get(3).getBooking() == null);
+        assertTrue(results.get(4).getError() != null && results.get(4).getBooking() == null);
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(1L).orElseThrow().getStatus());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(2L).orElseThrow().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(3L).orElseThrow().getStatus());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(4L).orElseThrow().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(5L).orElseThrow().getStatus());
+        assertTrue(bookingIntervalIndex.hasOverlap(1L, start.plusDays(3), start.plusDays(4)));
+        assertEquals(Optional.of(2L), bookingService.countBookingsOwner(ownerId, "WAITING"));
+    }
+
     @DirtiesContext
     @Test
     void getApprovedBooking_whenApproveIsTrue_thenReturnStatusApproved() {
         long ownerId = 1L;
-        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, BookingStatus.WAITING);
+        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking);
 
         BookingDtoFullOut resul = bookingService.getApprovedBooking(1L, ownerId, "true");
@@ -313,7 +476,7 @@ class BookingServiceImplIntegrationTest {
     @Test
     void getApprovedBooking_whenApproveIsFalse_thenReturnStatusRejected() {
         long ownerId = 1L;
-        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, BookingStatus.WAITING);
+        Booking booking = new Booking(0L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 1L, 2L, 1L, BookingStatus.WAITING);
         bookingRepository.save(booking);
 
         BookingDtoFullOut resul = bookingService.getApprovedBooking(1L, ownerId, "false");
@@ -321,4 +484,149 @@ class BookingServiceImplIntegrationTest {
         assertEquals(BookingStatus.REJECTED.toString(), resul.getStatus());
     }
 
-}
\ No newline at end of file
+    @DirtiesContext
+    @Test
+    void createBooking_whenDatesOverlapApprovedBooking_thenNotAvailableException() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        bookingService.createBooking(new BookingDtoIn(0L, start, start.plusDays(5), 1L, 2L, null), 2L);
+        bookingService.getApprovedBooking(1L, 1L, "true");
+        BookingDtoIn overlapping = new BookingDtoIn(0L, start.plusDays(4), start.plusDays(8), 1L, 3L, null);
+        BookingDtoIn adjacent = new BookingDtoIn(0L, start.plusDays(5), start.plusDays(8), 1L, 3L, null);
+
+        assertThrows(NotAvailableException.class, () -> bookingService.createBooking(overlapping, 3L));
+        assertEquals(BookingStatus.WAITING.toString(), bookingService.createBooking(adjacent, 3L).getStatus());
+    }
+
+    @DirtiesContext
+    @Test
+    void getApprovedBooking_whenDatesOverlapApprovedBookingLoadedAtStartup_thenNotAvailableException() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingRepository.save(new Booking(0L, start, start.plusDays(5), 1L, 2L, 1L, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(0L, start.plusDays(2), start.plusDays(3), 1L, 3L, 1L, BookingStatus.WAITING));
+        bookingIntervalIndex.load();
+
+        assertThrows(NotAvailableException.class, () -> bookingService.getApprovedBooking(2L, 1L, "true"));
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(2L).orElseThrow().getStatus());
+    }
+
+    @SneakyThrows
+    @DirtiesContext
+    @Test
+    void getApprovedBooking_whenOverlappingBookingsApprovedConcurrently_thenOnlyOneIsApproved() {
+        int threads = 8;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<BookingDtoFullOut>> approvals = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Booking booking = bookingRepository.save(
+                    new Booking(0L, start.plusHours(i), start.plusDays(2).plusHours(i), 1L, 2L, 1L, BookingStatus.WAITING));
+            approvals.add(() -> bookingService.getApprovedBooking(booking.getId(), 1L, "true"));
+        }
+
+        int approved = runConcurrently(approvals);
+
+        assertEquals(1, approved);
+        assertEquals(1, bookingRepository.findAllByStatusAndEndAfter(BookingStatus.APPROVED, start).size());
+    }
+
+    @SneakyThrows
+    @DirtiesContext
+    @Test
+    void getApprovedBooking_whenSameBookingApprovedConcurrently_thenOnlyOneSucceeds() {
+        int threads = 8;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingRepository.save(new Booking(0L, start, start.plusDays(2), 1L, 2L, 1L, BookingStatus.WAITING));
+        List<Callable<BookingDtoFullOut>> approvals = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            approvals.add(() -> bookingService.getApprovedBooking(1L, 1L, "true"));
+        }
+
+        int approved = runConcurrently(approvals);
+
+        assertEquals(1, approved);
+        assertEquals(1L, bookingRepository.findById(1L).orElseThrow().getVersion());
+    }
+
+    @DirtiesContext
+    @Test
+    @SneakyThrows
+    void exportBookings_whenNdjsonForOwner_thenOneLinePerBooking() {
+        saveBookingsForEveryState();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookingService.exportBookings(1L, "OWNER", BookingExportFormat.NDJSON).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":4,"), lines[0]);
+    }
+
+    @DirtiesContext
+    @Test
+    @SneakyThrows
+    void exportBookings_whenCsvForBooker_thenHeaderAndOnlyOwnBookings() {
+        saveBookingsForEveryState();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookingService.exportBookings(3L, "BOOKER", BookingExportFormat.CSV).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,start,end,status,booker_id,item_id,item_name", lines[0]);
+        assertTrue(lines[1].startsWith("4,"), lines[1]);
+        assertTrue(lines[1].endsWith(",WAITING,3,2,item-2"), lines[1]);
+    }
+
+    @DirtiesContext
+    @Test
+    void createBooking_whenAvailabilityAlreadyCached_thenNewBookingIsNotFree() {
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        assertEquals(List.of(new IntervalDto(from, to)), itemService.getItemAvailability(2L, 1L, from, to));
+
+        bookingService.createBooking(new BookingDtoIn(0L, from.plusDays(2), from.plusDays(4), 1L, 2L, null), 2L);
+
+        assertEquals(List.of(new IntervalDto(from, from.plusDays(2)), new IntervalDto(from.plusDays(4), to)),
+                itemService.getItemAvailability(2L, 1L, from, to));
+    }
+
+    private void saveBookingsForEveryState() {
+        bookingRepository.save(new Booking(0L, LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(5), 1L, 2L, 1L, BookingStatus.WAITING));
+        bookingRepository.save(new Booking(0L, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1), 2L, 2L, 1L, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(0L, LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), 1L, 2L, 1L, BookingStatus.REJECTED));
+        bookingRepository.save(new Booking(0L, LocalDateTime.now().plusDays(15), LocalDateTime.now().plusDays(20), 2L, 3L, 1L, BookingStatus.WAITING));
+    }
+
+    private int runConcurrently(List<Callable<BookingDtoFullOut>> calls) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(calls.size());
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<BookingDtoFullOut>> results = new ArrayList<>();
+        for (Callable<BookingDtoFullOut> call : calls) {
+            results.add(executor.submit(() -> {
+                startSignal.await();
+                return call.call();
+            }));
+        }
+        startSignal.countDown();
+        int succeeded = 0;
+        for (Future<BookingDtoFullOut> result : results) {
+            try {
+                result.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof NotAvailableException || e.getCause() instanceof ConflictException,
+                        e.getCause().toString());
+            }
+        }
+        executor.shutdown();
+        return succeeded;
+    }
+
+    private long countQueries(Runnable call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+}
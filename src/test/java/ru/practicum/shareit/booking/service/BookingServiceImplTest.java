@@ -1,37 +1,59 @@
 package ru.practicum.shareit.booking.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.practicum.shareit.booking.BookingAvailability;
+import ru.practicum.shareit.booking.BookingBatchWriter;
+import ru.practicum.shareit.booking.BookingExportFormat;
+import ru.practicum.shareit.booking.BookingExporter;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingLifecycleEvent;
+import ru.practicum.shareit.booking.BookingLifecycleScheduler;
+import ru.practicum.shareit.booking.BookingPhaseMaintainer;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRole;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingApprovalDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchDtoIn;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDtoFullOut;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.EnumBookingStateException;
 import ru.practicum.shareit.exception.InvalidValidationException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceFilter;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -52,11 +74,33 @@ class BookingServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
 
-    @InjectMocks
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private BookingExporter bookingExporter;
+
+    @Mock
+    private BookingBatchWriter bookingBatchWriter;
+
+    @Mock
+    private BookingAvailability bookingAvailability;
+
+    @Mock
+    private BookingLifecycleScheduler bookingLifecycleScheduler;
+
+    @Mock
+    private BookingPhaseMaintainer bookingPhaseMaintainer;
+
     private BookingServiceImpl bookingService;
 
     @BeforeEach
     void createUnits() {
+        UserIdentityMap userIdentityMap = new UserIdentityMap(
+                new UserExistenceFilter(userRepository, new SimpleMeterRegistry(), 100, 0.01));
+        bookingService = new BookingServiceImpl(
+                bookingRepository, itemRepository, bookingIntervalIndex, bookingExporter, bookingBatchWriter,
+                bookingAvailability, bookingLifecycleScheduler, bookingPhaseMaintainer, userIdentityMap);
         owner = new User(1L, "owner", "owner@ru");
         user = new User(2L, "user", "user@ru");
         item = new Item(1L, "item", "desc1", true, 1L, null);
@@ -66,6 +110,7 @@ class BookingServiceImplTest {
                 LocalDateTime.now().plusDays(10),
                 1L,
                 2L,
+                1L,
                 BookingStatus.WAITING
         );
 
@@ -84,7 +129,7 @@ class BookingServiceImplTest {
     void getBookingInfo_whenUserNotFound_thenObjectNotFoundException() {
         long userId = 1L;
         long bookingId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> bookingService.getBookingInfo(userId, bookingId));
 
@@ -96,7 +141,7 @@ class BookingServiceImplTest {
         long userId = 1L;
         long bookingId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> bookingService.getBookingInfo(userId, bookingId));
@@ -108,7 +153,7 @@ class BookingServiceImplTest {
     void getBookingInfo_whenItemNotFound_thenObjectNotFoundException() {
         long userId = 1L;
         long bookingId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(new Booking()));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.empty());
 
@@ -121,7 +166,7 @@ class BookingServiceImplTest {
         long bookingId = 1L;
         item.setOwnerId(3L);
         booking.setBookerId(4L);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
         when(itemRepository.findById(booking.getItemId())).thenReturn(Optional.of(item));
 
@@ -135,6 +180,7 @@ class BookingServiceImplTest {
         item.setOwnerId(3L);
         booking.setBookerId(4L);
         BookingDtoFullOut expected = BookingMapper.mapToBookingFullOut(booking, owner, item);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
         when(itemRepository.findById(booking.getItemId())).thenReturn(Optional.of(item));
@@ -151,6 +197,7 @@ class BookingServiceImplTest {
         item.setOwnerId(3L);
         booking.setBookerId(4L);
         BookingDtoFullOut expected = BookingMapper.mapToBookingFullOut(booking, owner, item);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
         when(itemRepository.findById(booking.getItemId())).thenReturn(Optional.of(item));
@@ -177,7 +224,7 @@ class BookingServiceImplTest {
         int start = 0;
         int size = 10;
         String state = BookingState.ALL.toString();
-        when(userRepository.findById(bookerId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(bookerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getListOfBookingsBooker(bookerId, state, start, size));
@@ -191,11 +238,9 @@ class BookingServiceImplTest {
         String state = BookingState.ALL.toString();
         Pageable pageable = PageRequest.of(start / size, size);
         BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
-        when(bookingRepository.findByBookerIdOrderByStartDesc(bookerId, pageable)).thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findAllDtoByBooker(eq(bookerId), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsBooker(bookerId, state, start, size);
 
@@ -211,16 +256,9 @@ class BookingServiceImplTest {
         String state = BookingState.CURRENT.toString();
         Pageable pageable = PageRequest.of(start / size, size);
         BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
-        when(bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                eq(bookerId),
-                any(),
-                any(),
-                eq(pageable)))
-                .thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findCurrentDtoByBooker(eq(bookerId), any(), any(), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsBooker(bookerId, state, start, size);
 
@@ -236,15 +274,9 @@ class BookingServiceImplTest {
         String state = BookingState.PAST.toString();
         Pageable pageable = PageRequest.of(start / size, size);
         BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
-        when(bookingRepository.findByBookerIdAndEndIsBeforeOrderByStartDesc(
-                eq(bookerId),
-                any(),
-                eq(pageable)))
-                .thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findPastDtoByBooker(eq(bookerId), any(), any(), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsBooker(bookerId, state, start, size);
 
@@ -260,15 +292,9 @@ class BookingServiceImplTest {
         String state = BookingState.FUTURE.toString();
         Pageable pageable = PageRequest.of(start / size, size);
         BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
-        when(bookingRepository.findByBookerIdAndStartAfterOrderByStartDesc(
-                eq(bookerId),
-                any(),
-                eq(pageable)))
-                .thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findFutureDtoByBooker(eq(bookerId), any(), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsBooker(bookerId, state, start, size);
 
@@ -284,15 +310,9 @@ class BookingServiceImplTest {
         String state = BookingState.WAITING.toString();
         Pageable pageable = PageRequest.of(start / size, size);
         BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
-        when(bookingRepository.findByBookerIdAndStatusEqualsOrderByStartDesc(
-                bookerId,
-                BookingStatus.WAITING,
-                pageable))
-                .thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findStatusDtoByBooker(eq(bookerId), eq(BookingStatus.WAITING), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsBooker(bookerId, state, start, size);
 
@@ -308,15 +328,9 @@ class BookingServiceImplTest {
         String state = BookingState.REJECTED.toString();
         Pageable pageable = PageRequest.of(start / size, size);
         BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
-        when(bookingRepository.findByBookerIdAndStatusEqualsOrderByStartDesc(
-                bookerId,
-                BookingStatus.REJECTED,
-                pageable))
-                .thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findStatusDtoByBooker(eq(bookerId), eq(BookingStatus.REJECTED), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsBooker(bookerId, state, start, size);
 
@@ -324,6 +338,65 @@ class BookingServiceImplTest {
         assertEquals(expectedList, result);
     }
 
+    @Test
+    void getListOfBookingsBookerByCursor_whenMoreRowsThanSize_thenReturnPageWithNextCursor() {
+        long bookerId = 2L;
+        int size = 1;
+        BookingDtoFullOut first = BookingMapper.mapToBookingFullOut(booking, user, item);
+        BookingDtoFullOut second = new BookingDtoFullOut(
+                2L,
+                booking.getStart().minusDays(1),
+                booking.getEnd(),
+                BookingStatus.WAITING,
+                user.getId(),
+                item.getId(),
+                item.getName());
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findAllDtoByBooker(
+                bookerId,
+                SeekCursor.FIRST.getTime(),
+                SeekCursor.FIRST.getId(),
+                PageRequest.of(0, size + 1)))
+                .thenReturn(List.of(first, second));
+
+        CursorPage<BookingDtoFullOut> result = bookingService.getListOfBookingsBookerByCursor(
+                bookerId, BookingState.ALL.toString(), "", size);
+
+        assertEquals(List.of(first), result.getContent());
+        assertEquals(new SeekCursor(first.getStart(), first.getId()), SeekCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    void getListOfBookingsBookerByCursor_whenLastPage_thenNextCursorIsNull() {
+        long bookerId = 2L;
+        int size = 10;
+        SeekCursor cursor = new SeekCursor(booking.getStart().plusDays(1), 5L);
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.findStatusDtoByBooker(
+                bookerId,
+                BookingStatus.WAITING,
+                cursor.getTime(),
+                cursor.getId(),
+                PageRequest.of(0, size + 1)))
+                .thenReturn(List.of(expectedBooking));
+
+        CursorPage<BookingDtoFullOut> result = bookingService.getListOfBookingsBookerByCursor(
+                bookerId, BookingState.WAITING.toString(), cursor.encode(), size);
+
+        assertEquals(List.of(expectedBooking), result.getContent());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getListOfBookingsBookerByCursor_whenCursorIsNotCorrect_thenInvalidValidationException() {
+        long bookerId = 2L;
+
+        assertThrows(InvalidValidationException.class,
+                () -> bookingService.getListOfBookingsBookerByCursor(bookerId, "ALL", "not-a-cursor", 10));
+        verify(userRepository, never()).existsById(bookerId);
+    }
+
     @Test
     void getListOfBookingsOwner_whenStateIsNotCorrect_thenEnumBookingStateException() {
         long ownerId = 2L;
@@ -341,7 +414,7 @@ class BookingServiceImplTest {
         int start = 0;
         int size = 10;
         String state = BookingState.ALL.toString();
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getListOfBookingsOwner(ownerId, state, start, size));
@@ -354,8 +427,8 @@ class BookingServiceImplTest {
         int size = 10;
         String state = BookingState.ALL.toString();
         BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, owner, item);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, PageRequest.of(0, 1))).thenReturn(Page.empty());
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getListOfBookingsOwner(ownerId, state, start, size));
@@ -368,13 +441,11 @@ class BookingServiceImplTest {
         int size = 10;
         String state = BookingState.ALL.toString();
         Pageable pageable = PageRequest.of(start / size, size);
-        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, owner, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, PageRequest.of(0, 1))).thenReturn(new PageImpl<>(List.of(item)));
-        when(bookingRepository.findAllBookingsForOwner(ownerId, pageable)).thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(bookingRepository.findAllDtoByOwner(eq(ownerId), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsOwner(ownerId, state, start, size);
 
@@ -389,13 +460,11 @@ class BookingServiceImplTest {
         int size = 10;
         String state = BookingState.CURRENT.toString();
         Pageable pageable = PageRequest.of(start / size, size);
-        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, owner, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, PageRequest.of(0, 1))).thenReturn(new PageImpl<>(List.of(item)));
-        when(bookingRepository.findCurrentBookingsForOwner(eq(ownerId), any(), eq(pageable))).thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(bookingRepository.findCurrentDtoByOwner(eq(ownerId), any(), any(), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsOwner(ownerId, state, start, size);
 
@@ -410,13 +479,11 @@ class BookingServiceImplTest {
         int size = 10;
         String state = BookingState.PAST.toString();
         Pageable pageable = PageRequest.of(start / size, size);
-        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, owner, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, PageRequest.of(0, 1))).thenReturn(new PageImpl<>(List.of(item)));
-        when(bookingRepository.findPastBookingsForOwner(eq(ownerId), any(), eq(pageable))).thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(bookingRepository.findPastDtoByOwner(eq(ownerId), any(), any(), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsOwner(ownerId, state, start, size);
 
@@ -431,13 +498,11 @@ class BookingServiceImplTest {
         int size = 10;
         String state = BookingState.FUTURE.toString();
         Pageable pageable = PageRequest.of(start / size, size);
-        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, owner, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, PageRequest.of(0, 1))).thenReturn(new PageImpl<>(List.of(item)));
-        when(bookingRepository.findFutureBookingsForOwner(eq(ownerId), any(), eq(pageable))).thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(bookingRepository.findFutureDtoByOwner(eq(ownerId), any(), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsOwner(ownerId, state, start, size);
 
@@ -452,13 +517,11 @@ class BookingServiceImplTest {
         int size = 10;
         String state = BookingState.WAITING.toString();
         Pageable pageable = PageRequest.of(start / size, size);
-        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, owner, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, PageRequest.of(0, 1))).thenReturn(new PageImpl<>(List.of(item)));
-        when(bookingRepository.findStatusBookingsForOwner(ownerId, BookingStatus.WAITING.toString(), pageable)).thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(bookingRepository.findStatusDtoByOwner(eq(ownerId), eq(BookingStatus.WAITING), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsOwner(ownerId, state, start, size);
 
@@ -473,13 +536,11 @@ class BookingServiceImplTest {
         int size = 10;
         String state = BookingState.REJECTED.toString();
         Pageable pageable = PageRequest.of(start / size, size);
-        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, owner, item);
-        Page<Booking> page = new PageImpl<>(List.of(booking));
-        Collection<BookingDtoFullOut> expectedList = List.of(expectedBooking);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, PageRequest.of(0, 1))).thenReturn(new PageImpl<>(List.of(item)));
-        when(bookingRepository.findStatusBookingsForOwner(ownerId, BookingStatus.REJECTED.toString(), pageable)).thenReturn(page);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        List<BookingDtoFullOut> expectedList = List.of(expectedBooking);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(bookingRepository.findStatusDtoByOwner(eq(ownerId), eq(BookingStatus.REJECTED), any(), anyLong(), eq(pageable))).thenReturn(expectedList);
 
         Collection<BookingDtoFullOut> result = bookingService.getListOfBookingsOwner(ownerId, state, start, size);
 
@@ -487,6 +548,135 @@ class BookingServiceImplTest {
         assertEquals(expectedList, result);
     }
 
+    @Test
+    void getListOfBookingsOwnerByCursor_whenStateFuture_thenReturnPage() {
+        long ownerId = 2L;
+        int size = 10;
+        SeekCursor cursor = new SeekCursor(booking.getStart().plusDays(1), 5L);
+        BookingDtoFullOut expectedBooking = BookingMapper.mapToBookingFullOut(booking, user, item);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(bookingRepository.findFutureDtoByOwner(
+                eq(ownerId),
+                any(),
+                eq(cursor.getTime()),
+                eq(cursor.getId()),
+                eq(PageRequest.of(0, size + 1))))
+                .thenReturn(List.of(expectedBooking));
+
+        CursorPage<BookingDtoFullOut> result = bookingService.getListOfBookingsOwnerByCursor(
+                ownerId, BookingState.FUTURE.toString(), cursor.encode(), size);
+
+        assertEquals(List.of(expectedBooking), result.getContent());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void countBookingsBooker_whenStateAll_thenReturnSumOfStatusTotals() {
+        long bookerId = 2L;
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+        when(bookingRepository.countByBookerIdAndStatus(eq(bookerId), any())).thenReturn(2L);
+
+        Optional<Long> result = bookingService.countBookingsBooker(bookerId, "ALL");
+
+        assertEquals(Optional.of(2L * BookingStatus.values().length), result);
+    }
+
+    @Test
+    void countBookingsOwner_whenStatePast_thenReturnEmpty() {
+        long ownerId = 1L;
+        when(userRepository.existsById(ownerId)).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+
+        Optional<Long> result = bookingService.countBookingsOwner(ownerId, "PAST");
+
+        assertEquals(Optional.empty(), result);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void countBookingsOwner_whenBookingApproved_thenTotalsMovedWithoutNewCountQuery() {
+        long ownerId = 1L;
+        long bookingId = 1L;
+        booking.setStatus(BookingStatus.WAITING);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.countByOwnerIdAndStatus(ownerId, BookingStatus.WAITING)).thenReturn(1L);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.WAITING);
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+        assertEquals(Optional.of(1L), bookingService.countBookingsOwner(ownerId, "WAITING"));
+
+        bookingService.getApprovedBooking(bookingId, ownerId, "true");
+
+        assertEquals(Optional.of(0L), bookingService.countBookingsOwner(ownerId, "WAITING"));
+        verify(bookingRepository, times(1)).countByOwnerIdAndStatus(ownerId, BookingStatus.WAITING);
+    }
+
+    @Test
+    void onBookingLifecycleEvent_whenExpired_thenAvailabilityEvicted() {
+        Booking canceled = new Booking(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 3L, 2L, 1L,
+                BookingStatus.CANCELED);
+
+        bookingService.onBookingLifecycleEvent(new BookingLifecycleEvent(BookingLifecycleEvent.Type.EXPIRED, canceled));
+
+        verify(bookingAvailability).evict(3L);
+    }
+
+    @Test
+    void onBookingLifecycleEvent_whenStarted_thenNothingChanged() {
+        Booking approved = new Booking(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 3L, 2L, 1L,
+                BookingStatus.APPROVED);
+
+        bookingService.onBookingLifecycleEvent(new BookingLifecycleEvent(BookingLifecycleEvent.Type.STARTED, approved));
+
+        verifyNoInteractions(bookingAvailability);
+    }
+
+    @Test
+    void exportBookings_whenRoleIsNotCorrect_thenInvalidValidationException() {
+        assertThrows(InvalidValidationException.class,
+                () -> bookingService.exportBookings(1L, "ADMIN", BookingExportFormat.NDJSON));
+        verifyNoInteractions(bookingExporter);
+    }
+
+    @Test
+    void exportBookings_whenOwnerHaveNotAnyItem_thenObjectNotFoundException() {
+        long ownerId = 1L;
+        when(userRepository.existsById(ownerId)).thenReturn(true);
+        when(itemRepository.existsByOwnerId(ownerId)).thenReturn(false);
+
+        assertThrows(ObjectNotFoundException.class,
+                () -> bookingService.exportBookings(ownerId, "OWNER", BookingExportFormat.CSV));
+        verifyNoInteractions(bookingExporter);
+    }
+
+    @Test
+    @SneakyThrows
+    void exportBookings_whenBookerFound_thenBodyStreamsFromExporter() {
+        long bookerId = 2L;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+
+        bookingService.exportBookings(bookerId, "BOOKER", BookingExportFormat.NDJSON).writeTo(out);
+
+        verify(bookingExporter).export(bookerId, BookingRole.BOOKER, BookingExportFormat.NDJSON, out);
+    }
+
+    @Test
+    @SneakyThrows
+    void exportBookings_whenRoleInLowerCase_thenRoleRecognized() {
+        long bookerId = 2L;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(userRepository.existsById(bookerId)).thenReturn(true);
+
+        bookingService.exportBookings(bookerId, "booker", BookingExportFormat.CSV).writeTo(out);
+
+        verify(bookingExporter).export(bookerId, BookingRole.BOOKER, BookingExportFormat.CSV, out);
+    }
+
     @Test
     void createBooking_whenUserNotFound_thenObjectNotFoundException() {
         long bookerId = 2L;
@@ -505,6 +695,16 @@ class BookingServiceImplTest {
         assertThrows(NotAvailableException.class, () -> bookingService.createBooking(bookingDtoIn, bookerId));
     }
 
+    @Test
+    void createBooking_whenBookingDtoStartEqualsEnd_thenNotAvailableException() {
+        long bookerId = 2L;
+        bookingDtoIn.setEnd(bookingDtoIn.getStart());
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
+
+        assertThrows(NotAvailableException.class, () -> bookingService.createBooking(bookingDtoIn, bookerId));
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void createBooking_whenItemNotFound_thenObjectNotFoundException() {
         long bookerId = 2L;
@@ -549,6 +749,62 @@ class BookingServiceImplTest {
         BookingDtoFullOut result = bookingService.createBooking(bookingDtoIn, bookerId);
 
         assertEquals(expectedBooking, result);
+        verify(bookingRepository).save(argThat((Booking newBooking) ->
+                newBooking.getOwnerId() == item.getOwnerId()));
+        verify(bookingAvailability).evict(itemId);
+        verify(bookingLifecycleScheduler).scheduleExpiry(booking);
+    }
+
+    @Test
+    void createBookings_whenEntriesValidAndInvalid_thenOnlyValidInsertedAndEachReported() {
+        long bookerId = 2L;
+        BookingDtoIn ownItem = new BookingDtoIn(2L, bookingDtoIn.getStart(), bookingDtoIn.getEnd(), 2L, 2L, null);
+        BookingDtoIn missingItem = new BookingDtoIn(3L, bookingDtoIn.getStart(), bookingDtoIn.getEnd(), 3L, 2L, null);
+        Item bookersItem = new Item(2L, "item2", "desc2", true, 2L, null);
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
+        when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item, bookersItem));
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(
+                new BookingBatchDtoIn(List.of(bookingDtoIn, ownItem, missingItem)), bookerId);
+
+        assertEquals(3, results.size());
+        assertEquals(BookingStatus.WAITING.toString(), results.get(0).getBooking().getStatus());
+        assertEquals("Владелец вещи не может забронировать собственную вещь.", results.get(1).getError());
+        assertEquals("Вещи с ID = 3 не существует.", results.get(2).getError());
+        verify(bookingBatchWriter).insert(argThat((List<Booking> bookings) -> bookings.size() == 1
+                && bookings.get(0).getItemId() == 1L && bookings.get(0).getOwnerId() == 1L));
+        verify(bookingLifecycleScheduler).scheduleExpiry(any());
+        verify(bookingAvailability).evict(1L);
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void createBookings_whenEntriesOverlapWithinBatch_thenLaterEntryRejected() {
+        long bookerId = 2L;
+        BookingDtoIn overlapping = new BookingDtoIn(2L, bookingDtoIn.getStart().plusDays(1),
+                bookingDtoIn.getEnd().plusDays(1), 1L, 2L, null);
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(user));
+        when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item));
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(
+                new BookingBatchDtoIn(List.of(bookingDtoIn, overlapping)), bookerId);
+
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getBooking());
+        verify(bookingBatchWriter).insert(argThat((List<Booking> bookings) -> bookings.size() == 1));
+    }
+
+    @Test
+    void createBooking_whenItemAlreadyBookedForDates_thenNotAvailableException() {
+        long bookerId = 2L;
+        long itemId = 1L;
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.hasOverlap(itemId, bookingDtoIn.getStart(), bookingDtoIn.getEnd()))
+                .thenReturn(true);
+
+        assertThrows(NotAvailableException.class, () -> bookingService.createBooking(bookingDtoIn, bookerId));
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -560,7 +816,7 @@ class BookingServiceImplTest {
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
-        verify(bookingRepository, never()).save(booking);
+        verify(bookingRepository, never()).saveAndFlush(booking);
     }
 
     @Test
@@ -569,11 +825,11 @@ class BookingServiceImplTest {
         long bookingId = 1L;
         String approved = "false";
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
-        verify(bookingRepository, never()).save(booking);
+        verify(bookingRepository, never()).saveAndFlush(booking);
     }
 
     @Test
@@ -583,12 +839,13 @@ class BookingServiceImplTest {
         String approved = "false";
         item.setOwnerId(5L);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
-        verify(bookingRepository, never()).save(booking);
+        verify(bookingRepository, never()).saveAndFlush(booking);
     }
 
     @Test
@@ -598,12 +855,13 @@ class BookingServiceImplTest {
         String approved = "false";
         booking.setStatus(BookingStatus.APPROVED);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
         assertThrows(NotAvailableException.class,
                 () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
-        verify(bookingRepository, never()).save(booking);
+        verify(bookingRepository, never()).saveAndFlush(booking);
     }
 
     @Test
@@ -612,12 +870,14 @@ class BookingServiceImplTest {
         long bookingId = 1L;
         String approved = "any";
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.WAITING);
 
         assertThrows(InvalidValidationException.class,
                 () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
-        verify(bookingRepository, never()).save(booking);
+        verify(bookingRepository, never()).saveAndFlush(booking);
     }
 
     @Test
@@ -627,13 +887,35 @@ class BookingServiceImplTest {
         String approved = "true";
         booking.setStatus(BookingStatus.WAITING);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when((bookingRepository.save(booking))).thenReturn(booking);
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.WAITING);
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
 
         BookingDtoFullOut result = bookingService.getApprovedBooking(bookingId, ownerId, approved);
 
         assertEquals(BookingStatus.APPROVED.toString(), result.getStatus());
+        verify(bookingIntervalIndex).add(booking);
+    }
+
+    @Test
+    void getApprovedBooking_whenApprovedTrueAndDatesAlreadyBooked_thenNotAvailableException() {
+        long ownerId = 1L;
+        long bookingId = 1L;
+        String approved = "true";
+        booking.setStatus(BookingStatus.WAITING);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.WAITING);
+        when(bookingIntervalIndex.hasOverlap(item.getId(), booking.getStart(), booking.getEnd())).thenReturn(true);
+
+        assertThrows(NotAvailableException.class,
+                () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
+        verify(bookingRepository, never()).saveAndFlush(booking);
+        verify(bookingIntervalIndex, never()).add(any());
     }
 
     @Test
@@ -643,13 +925,164 @@ class BookingServiceImplTest {
         String approved = "false";
         booking.setStatus(BookingStatus.WAITING);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when((bookingRepository.save(booking))).thenReturn(booking);
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.WAITING);
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
 
         BookingDtoFullOut result = bookingService.getApprovedBooking(bookingId, ownerId, approved);
 
         assertEquals(BookingStatus.REJECTED.toString(), result.getStatus());
+        verify(bookingIntervalIndex).remove(booking);
+    }
+
+    @Test
+    void getApprovedBooking_whenBookingProcessedConcurrently_thenNotAvailableException() {
+        long ownerId = 1L;
+        long bookingId = 1L;
+        String approved = "true";
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.APPROVED);
+
+        assertThrows(NotAvailableException.class,
+                () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
+        verify(bookingIntervalIndex).lockItem(item.getId());
+        verify(bookingRepository, never()).saveAndFlush(booking);
+    }
+
+    @Test
+    void getApprovedBooking_whenVersionChangedBeforeFlush_thenConflictException() {
+        long ownerId = 1L;
+        long bookingId = 1L;
+        String approved = "true";
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.WAITING);
+        when(bookingRepository.saveAndFlush(booking))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingId));
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
+        verify(bookingIntervalIndex, never()).add(any());
+    }
+
+    @Test
+    void getApprovedBooking_whenExclusionConstraintViolated_thenConflictException() {
+        long ownerId = 1L;
+        long bookingId = 1L;
+        String approved = "true";
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.findStatusById(bookingId)).thenReturn(BookingStatus.WAITING);
+        when(bookingRepository.saveAndFlush(booking))
+                .thenThrow(new DataIntegrityViolationException("ex_bookings_approved_overlap"));
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.getApprovedBooking(bookingId, ownerId, approved));
+        verify(bookingIntervalIndex, never()).add(any());
+    }
+
+    @Test
+    void approveBookings_whenDecisionsValidAndInvalid_thenValidAppliedAndEachReported() {
+        long ownerId = 1L;
+        booking.setStatus(BookingStatus.WAITING);
+        Booking overlapping = new Booking(2L, booking.getStart().plusDays(1), booking.getEnd().plusDays(1),
+                1L, 3L, 1L, BookingStatus.WAITING);
+        Booking later = new Booking(3L, booking.getEnd(), booking.getEnd().plusDays(1), 1L, 3L, 1L,
+                BookingStatus.WAITING);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findAllById(anyCollection())).thenReturn(List.of(booking, overlapping, later));
+        when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item));
+        when(bookingRepository.findIdsByIdInAndStatus(anyCollection(), eq(BookingStatus.WAITING)))
+                .thenReturn(List.of(1L, 2L, 3L));
+
+        List<BookingBatchResultDto> results = bookingService.approveBookings(new BookingApprovalDtoIn(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, true),
+                new BookingDecisionDto(3L, false),
+                new BookingDecisionDto(4L, true))), ownerId);
+
+        assertEquals(4, results.size());
+        assertEquals(BookingStatus.APPROVED.toString(), results.get(0).getBooking().getStatus());
+        assertNull(results.get(1).getBooking());
+        assertEquals(BookingStatus.REJECTED.toString(), results.get(2).getBooking().getStatus());
+        assertEquals("Запроса на бронирование с ID = 4 не существует.", results.get(3).getError());
+        assertEquals(BookingStatus.WAITING, overlapping.getStatus());
+        verify(bookingIntervalIndex).lockItems(Set.of(1L));
+        verify(bookingRepository).flush();
+        verify(bookingIntervalIndex).add(booking);
+        verify(bookingIntervalIndex).remove(later);
+        verify(bookingLifecycleScheduler).scheduleLifecycle(booking);
+        verify(bookingAvailability).evict(1L);
+    }
+
+    @Test
+    void approveBookings_whenNotOwnerOrAlreadyProcessed_thenNothingApplied() {
+        long ownerId = 1L;
+        Item othersItem = new Item(2L, "item2", "desc2", true, 2L, null);
+        Booking othersBooking = new Booking(2L, booking.getStart(), booking.getEnd(), 2L, 3L, 2L,
+                BookingStatus.WAITING);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findAllById(anyCollection())).thenReturn(List.of(booking, othersBooking));
+        when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item, othersItem));
+        when(bookingRepository.findIdsByIdInAndStatus(anyCollection(), eq(BookingStatus.WAITING)))
+                .thenReturn(List.of(2L));
+
+        List<BookingBatchResultDto> results = bookingService.approveBookings(new BookingApprovalDtoIn(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, true),
+                new BookingDecisionDto(1L, false))), ownerId);
+
+        assertEquals("Заявка на бронирование уже обработана.", results.get(0).getError());
+        assertEquals("Одобрить бронирование может только владелец вещи", results.get(1).getError());
+        assertEquals("Бронирование с ID = 1 указано в пакете несколько раз.", results.get(2).getError());
+        verify(bookingIntervalIndex).lockItems(Set.of(1L));
+        verify(bookingIntervalIndex, never()).add(any());
+        verify(bookingAvailability, never()).evict(anyLong());
+    }
+
+    @Test
+    void approveBookings_whenApprovalOverlapsApprovedBooking_thenEntryRejected() {
+        long ownerId = 1L;
+        booking.setStatus(BookingStatus.WAITING);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findAllById(anyCollection())).thenReturn(List.of(booking));
+        when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item));
+        when(bookingRepository.findIdsByIdInAndStatus(anyCollection(), eq(BookingStatus.WAITING)))
+                .thenReturn(List.of(1L));
+        when(bookingIntervalIndex.hasOverlap(item.getId(), booking.getStart(), booking.getEnd())).thenReturn(true);
+
+        List<BookingBatchResultDto> results = bookingService.approveBookings(
+                new BookingApprovalDtoIn(List.of(new BookingDecisionDto(1L, true))), ownerId);
+
+        assertNull(results.get(0).getBooking());
+        assertEquals(BookingStatus.WAITING, booking.getStatus());
+        verify(bookingIntervalIndex, never()).add(any());
+    }
+
+    @Test
+    void approveBookings_whenVersionChangedBeforeFlush_thenConflictException() {
+        long ownerId = 1L;
+        booking.setStatus(BookingStatus.WAITING);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingRepository.findAllById(anyCollection())).thenReturn(List.of(booking));
+        when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item));
+        when(bookingRepository.findIdsByIdInAndStatus(anyCollection(), eq(BookingStatus.WAITING)))
+                .thenReturn(List.of(1L));
+        doThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L)).when(bookingRepository).flush();
+
+        assertThrows(ConflictException.class, () -> bookingService.approveBookings(
+                new BookingApprovalDtoIn(List.of(new BookingDecisionDto(1L, true))), ownerId));
+        verify(bookingIntervalIndex, never()).add(any());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import ru.practicum.shareit.booking.dto.IntervalDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheConfigTest {
+    private final CacheManager cacheManager = new CacheConfig().cacheManager(100, Duration.ofMinutes(10));
+    private final Cache busyIntervals = cacheManager.getCache(CacheConfig.ITEM_BUSY_INTERVALS);
+    private final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void itemBusyIntervals_whenBookingCommittedDuringLoad_thenStaleWindowsNotStored() {
+        List<IntervalDto> stale = List.of(new IntervalDto(start, start.plusDays(1)));
+
+        busyIntervals.get(1L, () -> {
+            busyIntervals.evict(1L);
+            return stale;
+        });
+
+        assertNull(busyIntervals.get(1L));
+    }
+
+    @Test
+    void itemBusyIntervals_whenLoadedWithoutEviction_thenWindowsStored() {
+        List<IntervalDto> busy = List.of(new IntervalDto(start, start.plusDays(1)));
+
+        busyIntervals.get(1L, () -> busy);
+
+        assertEquals(busy, busyIntervals.get(1L, List.class));
+    }
+
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EntityCacheTest {
+    private final EntityCache<User> cache = new EntityCache<>(
+            CacheConfig.USERS, Caffeine.newBuilder().maximumSize(100).build(), User.class, UserMapper::copy);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_whenLoadedOnce_thenLaterCallsReturnCopiesWithoutLoading() {
+        User loaded = cache.get(1L, () -> load(1L));
+        User first = cache.get(1L, () -> load(1L));
+        User second = cache.get(1L, User.class);
+
+        assertEquals(1, loads.get());
+        assertEquals(loaded, first);
+        assertNotSame(loaded, first);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void get_whenKeyEvictedDuringLoad_thenLoadedValueNotStored() {
+        cache.get(1L, () -> {
+            User user = load(1L);
+            cache.evict(1L);
+            return user;
+        });
+
+        assertNull(cache.get(1L));
+        cache.get(1L, () -> load(1L));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenClearedDuringLoad_thenLoadedValueNotStored() {
+        cache.get(1L, () -> {
+            User user = load(1L);
+            cache.clear();
+            return user;
+        });
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void get_whenKeyEvictedBeforeLoad_thenLoadedValueStored() {
+        cache.evict(1L);
+
+        cache.get(1L, () -> load(1L));
+
+        assertEquals(new User(1L, "user", "user@ru"), cache.get(1L, User.class));
+    }
+
+    @Test
+    void get_whenLoadedInsideTransaction_thenStoredAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.get(1L, () -> load(1L));
+
+            assertNull(cache.get(1L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(new User(1L, "user", "user@ru"), cache.get(1L, User.class));
+    }
+
+    @Test
+    void get_whenLoaderFindsNothing_thenNothingStored() {
+        assertNull(cache.get(1L, () -> null));
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void get_whenCachedCopyChangedByCaller_thenCacheUnchanged() {
+        cache.get(1L, () -> load(1L));
+
+        cache.get(1L, User.class).setName("changed");
+
+        assertEquals("user", cache.get(1L, User.class).getName());
+    }
+
+    private User load(long id) {
+        loads.incrementAndGet();
+        return new User(id, "user", "user@ru");
+    }
+
+}
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.idempotency;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.InvalidValidationException;
+import ru.practicum.shareit.exception.NotAvailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+    private final IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1), Duration.ofSeconds(5));
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void execute_whenRetriedWithSameKey_thenActionInvokedOnce() {
+        assertEquals(1, store.execute(1L, "POST /items", "key", "request", calls::incrementAndGet));
+        assertEquals(1, store.execute(1L, "POST /items", "key", "request", calls::incrementAndGet));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_whenWithoutKey_thenActionInvokedEveryTime() {
+        store.execute(1L, "POST /items", null, "request", calls::incrementAndGet);
+        store.execute(1L, "POST /items", null, "request", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_whenSameKeyOfOtherUserOrOperation_thenActionInvokedForEach() {
+        store.execute(1L, "POST /items", "key", "request", calls::incrementAndGet);
+        store.execute(2L, "POST /items", "key", "request", calls::incrementAndGet);
+        store.execute(1L, "POST /bookings", "key", "request", calls::incrementAndGet);
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_whenKeyReusedForOtherRequest_thenThrowConflictException() {
+        store.execute(1L, "POST /items", "key", "request", calls::incrementAndGet);
+
+        assertThrows(ConflictException.class,
+                () -> store.execute(1L, "POST /items", "key", "other", calls::incrementAndGet));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_whenKeyIsBlank_thenThrowInvalidValidationException() {
+        assertThrows(InvalidValidationException.class,
+                () -> store.execute(1L, "POST /items", " ", "request", calls::incrementAndGet));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void execute_whenFirstAttemptFailed_thenRetryInvokesActionAgain() {
+        assertThrows(NotAvailableException.class, () -> store.execute(1L, "POST /items", "key", "request", () -> {
+            throw new NotAvailableException("Вещь недоступна.");
+        }));
+
+        assertEquals(1, store.execute(1L, "POST /items", "key", "request", calls::incrementAndGet));
+    }
+
+    @Test
+    void execute_whenDuplicateArrivesWhileFirstRunning_thenWaitsForFirstResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(
+                () -> store.execute(1L, "POST /items", "key", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return calls.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> duplicate = CompletableFuture.supplyAsync(
+                () -> store.execute(1L, "POST /items", "key", "request", calls::incrementAndGet));
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_whenCacheFullWhileFirstRunning_thenDuplicateStillWaitsForFirst() throws Exception {
+        IdempotencyStore smallStore = new IdempotencyStore(1, Duration.ofHours(1), Duration.ofSeconds(5));
+        AtomicInteger firstCalls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(
+                () -> smallStore.execute(1L, "POST /items", "first", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return firstCalls.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            smallStore.execute(1L, "POST /items", "other-" + i, "request", calls::incrementAndGet);
+        }
+
+        CompletableFuture<Integer> duplicate = CompletableFuture.supplyAsync(
+                () -> smallStore.execute(1L, "POST /items", "first", "request", firstCalls::incrementAndGet));
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, firstCalls.get());
+    }
+
+    @Test
+    void execute_whenFirstRunsLongerThanWaitTimeout_thenDuplicateGetsConflictException() throws Exception {
+        IdempotencyStore impatientStore = new IdempotencyStore(100, Duration.ofHours(1), Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(
+                () -> impatientStore.execute(1L, "POST /items", "key", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return calls.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ConflictException.class,
+                () -> impatientStore.execute(1L, "POST /items", "key", "request", calls::incrementAndGet));
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, impatientStore.execute(1L, "POST /items", "key", "request", calls::incrementAndGet));
+        assertEquals(1, calls.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
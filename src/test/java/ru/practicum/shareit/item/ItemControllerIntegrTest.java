@@ -6,9 +6,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.IntervalDto;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -17,9 +23,11 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
+@Import(IdempotencyStore.class)
 class ItemControllerIntegrTest {
 
     @Autowired
@@ -31,6 +39,9 @@ class ItemControllerIntegrTest {
     @MockBean
     ItemService itemService;
 
+    @MockBean
+    UserIdentityMap userIdentityMap;
+
     @SneakyThrows
     @Test
     void getAllItems_whenWithoutParams_thenStatusOkAndParamIsDefault() {
@@ -49,6 +60,110 @@ class ItemControllerIntegrTest {
         assertEquals(objectMapper.writeValueAsString(listOfItem), result);
     }
 
+    @SneakyThrows
+    @Test
+    void getAllItems_whenTotalRequested_thenReturnTotalCountHeader() {
+        long userId = 1L;
+        when(itemService.getAllItems(userId, 0, 10)).thenReturn(List.of(new ItemDtoForOwner()));
+        when(itemService.countItemsOfOwner(userId)).thenReturn(12L);
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("total", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.TOTAL_COUNT_HEADER, "12"));
+
+        verify(itemService).countItemsOfOwner(userId);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAllItems_whenTotalNotRequested_thenCountIsNotInvoked() {
+        long userId = 1L;
+        when(itemService.getAllItems(userId, 0, 10)).thenReturn(List.of(new ItemDtoForOwner()));
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.TOTAL_COUNT_HEADER));
+
+        verify(itemService, never()).countItemsOfOwner(anyLong());
+    }
+
+    @SneakyThrows
+    @Test
+    void getItemAvailability_whenRangeGiven_thenReturnFreeIntervals() {
+        long userId = 2L;
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 12, 0);
+        LocalDateTime to = from.plusDays(3);
+        List<IntervalDto> free = List.of(new IntervalDto(from.plusDays(1), to));
+        when(itemService.getItemAvailability(userId, itemId, from, to)).thenReturn(free);
+
+        String result = mvc.perform(get("/items/{itemId}/availability", itemId)
+                        .header("X-Sharer-User-Id", userId)
+                        .param("from", "2030-01-01T12:00:00")
+                        .param("to", "2030-01-04T12:00:00"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(free), result);
+    }
+
+    @SneakyThrows
+    @Test
+    void getItemAvailability_whenRangeMissing_thenStatusIs5xx() {
+        long userId = 2L;
+
+        mvc.perform(get("/items/{itemId}/availability", 1L)
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().is5xxServerError());
+
+        verify(itemService, never()).getItemAvailability(anyLong(), anyLong(), any(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void getAvailableItems_whenValid_thenReturnFreeItemIds() {
+        long userId = 2L;
+        ItemAvailabilityDtoIn availabilityDto = new ItemAvailabilityDtoIn(
+                List.of(1L, 2L, 3L),
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        when(itemService.getAvailableItems(userId, availabilityDto)).thenReturn(List.of(1L, 3L));
+
+        String result = mvc.perform(post("/items/availability")
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(availabilityDto)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals("[1,3]", result);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAvailableItems_whenItemIdsEmpty_thenStatusBadRequest() {
+        long userId = 2L;
+        ItemAvailabilityDtoIn availabilityDto = new ItemAvailabilityDtoIn(
+                List.of(),
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+
+        mvc.perform(post("/items/availability")
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(availabilityDto)))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).getAvailableItems(anyLong(), any());
+    }
+
     @SneakyThrows
     @Test
     void getAllItems_whenParamStartLessZero_thenStatusBadRequest() {
@@ -226,6 +341,31 @@ class ItemControllerIntegrTest {
         assertEquals(objectMapper.writeValueAsString(listOfItem), result);
     }
 
+    @SneakyThrows
+    @Test
+    void searchItemByName_whenDateRangeGiven_thenSearchOnlyAvailableItems() {
+        long userId = 1L;
+        String search = "text";
+        LocalDateTime availableFrom = LocalDateTime.of(2030, 1, 1, 12, 0);
+        LocalDateTime availableTo = availableFrom.plusDays(2);
+        Collection<ItemDtoForBooker> listOfItem = List.of(new ItemDtoForBooker());
+        when(itemService.searchAvailableItemByName(userId, search, availableFrom, availableTo, 0, 10))
+                .thenReturn(listOfItem);
+
+        String result = mvc.perform(get("/items/search")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("text", search)
+                        .param("start", "2030-01-01T12:00:00")
+                        .param("end", "2030-01-03T12:00:00"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        verify(itemService, never()).searchItemByName(anyLong(), anyString(), anyInt(), anyInt());
+        assertEquals(objectMapper.writeValueAsString(listOfItem), result);
+    }
+
     @SneakyThrows
     @Test
     void searchItemByName_whenWithParams_thenStatusOk() {
@@ -347,6 +487,41 @@ class ItemControllerIntegrTest {
         assertEquals(objectMapper.writeValueAsString(newItemDto), result);
     }
 
+    @SneakyThrows
+    @Test
+    void createItem_whenRetriedWithSameIdempotencyKey_thenItemCreatedOnce() {
+        long userId = 1L;
+        ItemDto newItemDto = new ItemDto(1L, "name", "desc", true, 2L, 1L);
+        when(itemService.createItem(userId, newItemDto)).thenReturn(newItemDto);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/items")
+                            .header("X-Sharer-User-Id", userId)
+                            .header(IdempotencyStore.HEADER, "retry-1")
+                            .contentType("application/json")
+                            .content(objectMapper.writeValueAsString(newItemDto)))
+                    .andExpect(status().isOk());
+        }
+
+        verify(itemService, times(1)).createItem(userId, newItemDto);
+    }
+
+    @SneakyThrows
+    @Test
+    void createItem_whenIdempotencyKeyIsBlank_thenReturnBadRequest() {
+        long userId = 1L;
+        ItemDto newItemDto = new ItemDto(1L, "name", "desc", true, 2L, 1L);
+
+        mvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", userId)
+                        .header(IdempotencyStore.HEADER, " ")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(newItemDto)))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).createItem(userId, newItemDto);
+    }
+
     @SneakyThrows
     @Test
     void createComment_whenCommentIsNull_thenReturnBadRequest() {
@@ -438,4 +613,26 @@ class ItemControllerIntegrTest {
         verify(itemService).deleteItem(itemId, userId);
     }
 
+    @SneakyThrows
+    @Test
+    void getAllItems_whenWithoutUserHeader_thenStatusBadRequest() {
+        mvc.perform(get("/items"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userIdentityMap, itemService);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAllItems_whenUserNotFound_thenStatusNotFound() {
+        doThrow(new ObjectNotFoundException("Пользователя с ID = 99 не существует."))
+                .when(userIdentityMap).requireExists(99L);
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(itemService);
+    }
+
 }
\ No newline at end of file
@@ -132,6 +132,7 @@ class ItemMapperTest {
         assertEquals(updateItem.getName(), result.getName());
         assertEquals(updateItem.getDescription(), result.getDescription());
         assertEquals(updateItem.getAvailable(), result.getAvailable());
+        assertEquals("oldName", oldItem.getName());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    void createUnits() {
+        itemSearchIndex = new ItemSearchIndex(itemRepository, ItemSearchMode.INDEX);
+        itemSearchIndex.put(new Item(1L, "Дрель", "Простая дрель", true, 1L, null));
+        itemSearchIndex.put(new Item(2L, "Отвертка", "Аккумуляторная отвертка", true, 1L, null));
+        itemSearchIndex.put(new Item(3L, "Дрель ударная", "Мощная", false, 1L, null));
+        itemSearchIndex.put(new Item(4L, "Пила", "Для дрели не подходит", true, 1L, null));
+    }
+
+    @Test
+    void search_whenTextInNameOrDescription_thenReturnAvailableItemsOrderedById() {
+        assertEquals(List.of(1L, 4L), itemSearchIndex.search("дрел", 0, 10));
+        assertEquals(List.of(2L), itemSearchIndex.search("АККУМ", 0, 10));
+    }
+
+    @Test
+    void search_whenTextSpansNameAndDescription_thenReturnEmptyList() {
+        assertTrue(itemSearchIndex.search("пилаДля", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_whenTextShorterThanTrigram_thenReturnSubstringMatches() {
+        assertEquals(List.of(1L, 2L, 4L), itemSearchIndex.search("р", 0, 10));
+    }
+
+    @Test
+    void search_whenFromAndSize_thenReturnPage() {
+        assertEquals(List.of(2L), itemSearchIndex.search("р", 1, 1));
+        assertTrue(itemSearchIndex.search("р", 3, 10).isEmpty());
+    }
+
+    @Test
+    void search_whenFilterRejectsItem_thenPageCountsOnlyAcceptedItems() {
+        assertEquals(List.of(4L), itemSearchIndex.search("р", 1, 1, id -> id != 2L));
+        assertEquals(List.of(1L, 4L), itemSearchIndex.search("р", 0, 10, id -> id != 2L));
+    }
+
+    @Test
+    void put_whenItemUpdated_thenOldTextNotFound() {
+        itemSearchIndex.put(new Item(1L, "Перфоратор", "Тяжелый", true, 1L, null));
+
+        assertEquals(List.of(4L), itemSearchIndex.search("дрел", 0, 10));
+        assertEquals(List.of(1L), itemSearchIndex.search("перфо", 0, 10));
+    }
+
+    @Test
+    void put_whenItemBecomesUnavailable_thenNotFound() {
+        itemSearchIndex.put(new Item(2L, "Отвертка", "Аккумуляторная отвертка", false, 1L, null));
+
+        assertTrue(itemSearchIndex.search("отверт", 0, 10).isEmpty());
+    }
+
+    @Test
+    void remove_whenItemDeleted_thenNotFound() {
+        itemSearchIndex.remove(4L);
+
+        assertEquals(List.of(1L), itemSearchIndex.search("дрел", 0, 10));
+    }
+
+    @Test
+    void load_whenItemsInRepository_thenLoadInBatchesByIdAndFind() {
+        List<Item> firstBatch = new ArrayList<>();
+        for (long id = 10; id < 1010; id++) {
+            firstBatch.add(new Item(id, "item" + id, "desc", true, 1L, null));
+        }
+        when(itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderById(0L, PageRequest.of(0, 1000)))
+                .thenReturn(firstBatch);
+        when(itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderById(1009L, PageRequest.of(0, 1000)))
+                .thenReturn(List.of(new Item(2000L, "Молоток", "desc", true, 1L, null)));
+
+        itemSearchIndex.load();
+
+        assertEquals(List.of(2000L), itemSearchIndex.search("молот", 0, 10));
+        assertEquals(List.of(1009L), itemSearchIndex.search("item1009", 0, 10));
+    }
+
+    @Test
+    void load_whenModeIsNotIndex_thenRepositoryNotUsed() {
+        ItemSearchIndex disabled = new ItemSearchIndex(itemRepository, ItemSearchMode.LIKE);
+
+        disabled.load();
+
+        verify(itemRepository, never()).findAllByAvailableTrueAndIdGreaterThanOrderById(anyLong(), any());
+    }
+
+}
@@ -4,16 +4,27 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.BookingAvailability;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -25,6 +36,9 @@ class ItemRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
     @BeforeEach
     void createItem() {
         Item item1 = new Item(0L, "name1", "desc1", true, 1L, 10L);
@@ -60,6 +74,44 @@ class ItemRepositoryTest {
         assertEquals("name2", new ArrayList<>(result).get(1).getName());
     }
 
+    @DirtiesContext
+    @Test
+    void findAllByOwnerIdIsOrderById_whenMoreItemsThanSize_thenSliceHasNext() {
+        long userId = 1L;
+
+        Slice<Item> result = itemRepository.findAllByOwnerIdIsOrderById(userId, Pageable.ofSize(1));
+
+        assertEquals(1, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+    }
+
+    @DirtiesContext
+    @Test
+    void countByOwnerId_whenItemsFound_thenReturnCount() {
+        assertEquals(2, itemRepository.countByOwnerId(1L));
+        assertEquals(0, itemRepository.countByOwnerId(3L));
+    }
+
+    @DirtiesContext
+    @Test
+    void findFreeItemIds_whenItemsBusyOrUnavailable_thenReturnOnlyFreeAvailableItems() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = start.plusDays(2);
+        itemRepository.save(new Item(0L, "name3", "desc3", false, 1L, null));
+        itemRepository.save(new Item(0L, "name4", "desc4", true, 1L, null));
+        bookingRepository.save(new Booking(0L, start.plusDays(1), end.plusDays(1), 1L, 1L, 1L, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(0L, start, end, 2L, 1L, 1L, BookingStatus.REJECTED));
+        bookingRepository.save(new Booking(0L, end, end.plusDays(1), 4L, 1L, 1L, BookingStatus.WAITING));
+
+        List<Long> result = itemRepository.findFreeItemIds(
+                List.of(1L, 2L, 3L, 4L, 5L),
+                BookingAvailability.BUSY_STATUSES,
+                start,
+                end);
+
+        assertEquals(Set.of(2L, 4L), Set.copyOf(result));
+    }
+
     @DirtiesContext
     @Test
     void findAllItemByText_whenItemForNameNotFound_thenReturnEmptyCollection() {
@@ -116,6 +168,27 @@ class ItemRepositoryTest {
         assertEquals("desc2", new ArrayList<>(result).get(1).getDescription());
     }
 
+    @DirtiesContext
+    @Test
+    void findAllFreeItemByText_whenApprovedBookingOverlaps_thenItemSkippedBeforePaging() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        LocalDateTime end = start.plusDays(2);
+        itemRepository.save(new Item(0L, "name3", "desc3", true, 1L, null));
+        bookingRepository.save(new Booking(0L, start.minusDays(1), start.plusDays(1), 1L, 1L, 1L, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(0L, start, end, 2L, 1L, 1L, BookingStatus.WAITING));
+        bookingRepository.save(new Booking(0L, end, end.plusDays(1), 3L, 1L, 1L, BookingStatus.APPROVED));
+
+        Slice<Item> firstPage = itemRepository.findAllFreeItemByText(
+                "name", BookingStatus.APPROVED, start, end, PageRequest.of(0, 1));
+        Slice<Item> secondPage = itemRepository.findAllFreeItemByText(
+                "name", BookingStatus.APPROVED, start, end, PageRequest.of(1, 1));
+
+        assertEquals("name2", firstPage.getContent().get(0).getName());
+        assertTrue(firstPage.hasNext());
+        assertEquals("name3", secondPage.getContent().get(0).getName());
+        assertFalse(secondPage.hasNext());
+    }
+
     @DirtiesContext
     @Test
     void findAllByRequestId_whenItemNotFound_thenReturnEmptyCollection() {
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,14 +14,18 @@ import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,6 +44,12 @@ class ItemServiceImplIntegrationTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void createdUnite() {
         userRepository.save(new User(0L, "owner", "owner@ru"));
@@ -65,6 +77,34 @@ class ItemServiceImplIntegrationTest {
         assertEquals(item1.getName(), new ArrayList<>(result).get(0).getName());
     }
 
+    @DirtiesContext
+    @Test
+    void getAllItems_whenItemsHaveBookingsAndComments_thenQueryCountDoesNotDependOnItemCount() {
+        LocalDateTime now = LocalDateTime.now();
+        for (long itemId = 1; itemId <= 3; itemId++) {
+            itemRepository.save(new Item(0L, "item" + itemId, "desc" + itemId, true, 1L, null));
+            bookingRepository.save(new Booking(0L, now.minusDays(10), now.minusDays(8), itemId, 2L, 1L, BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(0L, now.minusDays(5), now.minusDays(3), itemId, 2L, 1L, BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(0L, now.plusDays(3), now.plusDays(5), itemId, 2L, 1L, BookingStatus.WAITING));
+            commentRepository.save(new Comment(0L, "comment" + itemId, itemId, 2L, now.minusDays(1)));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<ItemDtoForOwner> result = new ArrayList<>(itemService.getAllItems(1L, 0, 10));
+
+        assertEquals(6, statistics.getPrepareStatementCount());
+        assertEquals(3, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            long itemId = i + 1;
+            assertEquals(itemId * 3 - 1, result.get(i).getLastBooking().getId());
+            assertEquals(itemId * 3, result.get(i).getNextBooking().getId());
+            assertEquals(1, result.get(i).getComments().size());
+            assertEquals("user", new ArrayList<>(result.get(i).getComments()).get(0).getAuthorName());
+        }
+    }
+
     @DirtiesContext
     @Test
     void getItemById_whenUserNotFound_thenObjectNotFoundException() {
@@ -260,6 +300,7 @@ class ItemServiceImplIntegrationTest {
                         LocalDateTime.now(),
                         1L,
                         2L,
+                        1L,
                         BookingStatus.APPROVED));
 
         CommentDtoOut result = itemService.createComment(item1.getId(), 2L, newComment);
@@ -1,18 +1,26 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.BookingAvailability;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.IntervalDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.InvalidValidationException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemSearchMode;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
@@ -20,12 +28,16 @@ import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceFilter;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongPredicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -51,20 +63,34 @@ class ItemServiceImplTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private BookingAvailability bookingAvailability;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
     @Mock
     private CommentRepository commentRepository;
 
-    @InjectMocks
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
     private ItemServiceImpl itemService;
 
     @BeforeEach
     void createUnits() {
+        UserIdentityMap userIdentityMap = new UserIdentityMap(
+                new UserExistenceFilter(userRepository, new SimpleMeterRegistry(), 100, 0.01));
+        itemService = new ItemServiceImpl(itemRepository, userRepository, bookingRepository, bookingAvailability,
+                bookingIntervalIndex, commentRepository, itemSearchIndex, userIdentityMap);
         owner = new User(1L, "owner", "owner@ru");
         user = new User(2L, "user", "user@ru");
         item = new Item(1L, "item", "desc", true, 1L, null);
         comment = new Comment(1L, "text", 1L, 2L, LocalDateTime.now());
         bookingLast = new Booking();
+        bookingLast.setItemId(item.getId());
         bookingNext = new Booking();
+        bookingNext.setItemId(item.getId());
         itemDto = new ItemDto(1L, "item", "desc", true, 1L, null);
         commentDtoIn = new CommentDtoIn("comment");
     }
@@ -74,7 +100,7 @@ class ItemServiceImplTest {
         long ownerId = 1L;
         int start = 0;
         int size = 10;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.getAllItems(ownerId, start, size));
     }
@@ -85,17 +111,34 @@ class ItemServiceImplTest {
         int start = 0;
         int size = 10;
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new PageImpl<>(List.of(item)));
-        when(commentRepository.findAllByItemId(item.getId())).thenReturn(List.of(comment));
-        when(bookingRepository.findLastBookingByItem(eq(item.getId()), any())).thenReturn(Optional.empty());
-        when(bookingRepository.findNextBookingByItem(eq(item.getId()), any())).thenReturn(Optional.empty());
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new SliceImpl<>(List.of(item)));
+        when(commentRepository.findAllByItemIdIn(Set.of(item.getId()))).thenReturn(List.of(comment));
+        when(userRepository.findAllById(Set.of(comment.getAuthorID()))).thenReturn(List.of(user));
+        when(bookingRepository.findLastBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of());
+        when(bookingRepository.findNextBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of());
 
         Collection<ItemDtoForOwner> result = itemService.getAllItems(ownerId, start, size);
 
         assertEquals(1, result.size());
         assertNull(new ArrayList<>(result).get(0).getLastBooking());
         assertNull(new ArrayList<>(result).get(0).getNextBooking());
+        assertEquals(user.getName(), new ArrayList<>(new ArrayList<>(result).get(0).getComments()).get(0).getAuthorName());
+    }
+
+    @Test
+    void getAllItems_whenOwnerHasNoItems_thenReturnEmptyListWithoutBookingQueries() {
+        long ownerId = 1L;
+        int start = 0;
+        int size = 10;
+        Pageable pageable = PageRequest.of(start / size, size);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new SliceImpl<>(List.of()));
+
+        Collection<ItemDtoForOwner> result = itemService.getAllItems(ownerId, start, size);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(bookingRepository, commentRepository);
     }
 
     @Test
@@ -105,11 +148,12 @@ class ItemServiceImplTest {
         int size = 10;
         bookingLast.setId(20L);
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new PageImpl<>(List.of(item)));
-        when(commentRepository.findAllByItemId(item.getId())).thenReturn(List.of(comment));
-        when(bookingRepository.findLastBookingByItem(eq(item.getId()), any())).thenReturn(Optional.of(bookingLast));
-        when(bookingRepository.findNextBookingByItem(eq(item.getId()), any())).thenReturn(Optional.empty());
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new SliceImpl<>(List.of(item)));
+        when(commentRepository.findAllByItemIdIn(Set.of(item.getId()))).thenReturn(List.of(comment));
+        when(userRepository.findAllById(Set.of(comment.getAuthorID()))).thenReturn(List.of(user));
+        when(bookingRepository.findLastBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of(bookingLast));
+        when(bookingRepository.findNextBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of());
 
         Collection<ItemDtoForOwner> result = itemService.getAllItems(ownerId, start, size);
 
@@ -125,11 +169,12 @@ class ItemServiceImplTest {
         int size = 10;
         bookingNext.setId(20L);
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new PageImpl<>(List.of(item)));
-        when(commentRepository.findAllByItemId(item.getId())).thenReturn(List.of(comment));
-        when(bookingRepository.findLastBookingByItem(eq(item.getId()), any())).thenReturn(Optional.empty());
-        when(bookingRepository.findNextBookingByItem(eq(item.getId()), any())).thenReturn(Optional.of(bookingNext));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new SliceImpl<>(List.of(item)));
+        when(commentRepository.findAllByItemIdIn(Set.of(item.getId()))).thenReturn(List.of(comment));
+        when(userRepository.findAllById(Set.of(comment.getAuthorID()))).thenReturn(List.of(user));
+        when(bookingRepository.findLastBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of());
+        when(bookingRepository.findNextBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of(bookingNext));
 
         Collection<ItemDtoForOwner> result = itemService.getAllItems(ownerId, start, size);
 
@@ -146,11 +191,12 @@ class ItemServiceImplTest {
         bookingLast.setId(10L);
         bookingNext.setId(20L);
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
-        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new PageImpl<>(List.of(item)));
-        when(commentRepository.findAllByItemId(item.getId())).thenReturn(List.of(comment));
-        when(bookingRepository.findLastBookingByItem(eq(item.getId()), any())).thenReturn(Optional.of(bookingLast));
-        when(bookingRepository.findNextBookingByItem(eq(item.getId()), any())).thenReturn(Optional.of(bookingNext));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRepository.findAllByOwnerIdIsOrderById(ownerId, pageable)).thenReturn(new SliceImpl<>(List.of(item)));
+        when(commentRepository.findAllByItemIdIn(Set.of(item.getId()))).thenReturn(List.of(comment));
+        when(userRepository.findAllById(Set.of(comment.getAuthorID()))).thenReturn(List.of(user));
+        when(bookingRepository.findLastBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of(bookingLast));
+        when(bookingRepository.findNextBookingsByItems(eq(Set.of(item.getId())), any())).thenReturn(List.of(bookingNext));
 
         Collection<ItemDtoForOwner> result = itemService.getAllItems(ownerId, start, size);
 
@@ -159,11 +205,120 @@ class ItemServiceImplTest {
         assertEquals(bookingNext.getId(), new ArrayList<>(result).get(0).getNextBooking().getId());
     }
 
+    @Test
+    void countItemsOfOwner_whenUserNotFound_thenObjectNotFoundException() {
+        long ownerId = 1L;
+        when(userRepository.existsById(ownerId)).thenReturn(false);
+
+        assertThrows(ObjectNotFoundException.class, () -> itemService.countItemsOfOwner(ownerId));
+        verify(itemRepository, never()).countByOwnerId(anyLong());
+    }
+
+    @Test
+    void countItemsOfOwner_whenItemsCreatedAndDeleted_thenCountQueryRunsOnce() {
+        long ownerId = 1L;
+        when(userRepository.existsById(ownerId)).thenReturn(true);
+        when(itemRepository.countByOwnerId(ownerId)).thenReturn(3L);
+        when(itemRepository.save(item)).thenReturn(item);
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+
+        assertEquals(3L, itemService.countItemsOfOwner(ownerId));
+        itemService.createItem(ownerId, itemDto);
+        itemService.createItem(ownerId, itemDto);
+        itemService.deleteItem(item.getId(), ownerId);
+
+        assertEquals(4L, itemService.countItemsOfOwner(ownerId));
+        verify(itemRepository, times(1)).countByOwnerId(ownerId);
+    }
+
+    @Test
+    void getItemAvailability_whenFromIsNotBeforeTo_thenInvalidValidationException() {
+        long userId = 1L;
+        LocalDateTime from = LocalDateTime.now().plusDays(2);
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThrows(InvalidValidationException.class,
+                () -> itemService.getItemAvailability(userId, 1L, from, from.minusDays(1)));
+        verifyNoInteractions(bookingAvailability);
+    }
+
+    @Test
+    void getItemAvailability_whenItemNotFound_thenObjectNotFoundException() {
+        long userId = 1L;
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class,
+                () -> itemService.getItemAvailability(userId, itemId, from, from.plusDays(1)));
+        verifyNoInteractions(bookingAvailability);
+    }
+
+    @Test
+    void getItemAvailability_whenItemHasBusyWindows_thenReturnGapsInsideRange() {
+        long userId = 2L;
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingAvailability.getBusyIntervals(itemId)).thenReturn(List.of(
+                new IntervalDto(from.minusDays(1), from.plusDays(2)),
+                new IntervalDto(from.plusDays(5), from.plusDays(6))));
+
+        List<IntervalDto> result = itemService.getItemAvailability(userId, itemId, from, to);
+
+        assertEquals(List.of(
+                new IntervalDto(from.plusDays(2), from.plusDays(5)),
+                new IntervalDto(from.plusDays(6), to)), result);
+    }
+
+    @Test
+    void getItemAvailability_whenRangeIsInPast_thenReturnEmptyList() {
+        long userId = 2L;
+        long itemId = 1L;
+        LocalDateTime to = LocalDateTime.now().minusDays(1);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+
+        List<IntervalDto> result = itemService.getItemAvailability(userId, itemId, to.minusDays(5), to);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(bookingAvailability);
+    }
+
+    @Test
+    void getAvailableItems_whenStartAfterEnd_thenInvalidValidationException() {
+        long userId = 1L;
+        LocalDateTime start = LocalDateTime.now().plusDays(2);
+        ItemAvailabilityDtoIn availabilityDto = new ItemAvailabilityDtoIn(List.of(1L), start, start.minusDays(1));
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThrows(InvalidValidationException.class, () -> itemService.getAvailableItems(userId, availabilityDto));
+        verify(itemRepository, never()).findFreeItemIds(any(), any(), any(), any());
+    }
+
+    @Test
+    void getAvailableItems_whenSomeItemsFree_thenReturnThemInRequestedOrderWithoutDuplicates() {
+        long userId = 1L;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(1);
+        ItemAvailabilityDtoIn availabilityDto = new ItemAvailabilityDtoIn(List.of(5L, 3L, 5L, 1L, 2L), start, end);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRepository.findFreeItemIds(Set.of(5L, 3L, 1L, 2L), BookingAvailability.BUSY_STATUSES, start, end))
+                .thenReturn(List.of(1L, 2L, 5L));
+
+        List<Long> result = itemService.getAvailableItems(userId, availabilityDto);
+
+        assertEquals(List.of(5L, 1L, 2L), result);
+    }
+
     @Test
     void getItemById_whenUserNotFound_thenObjectNotFoundException() {
         long userId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.getItemById(userId, itemId));
     }
@@ -172,7 +327,7 @@ class ItemServiceImplTest {
     void getItemById_whenItemNotFound_thenObjectNotFoundException() {
         long userId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.getItemById(userId, itemId));
@@ -182,6 +337,7 @@ class ItemServiceImplTest {
     void getItemById_whenWithoutBookingsForOwner_thenReturnItemWithLastAndNextBookingsAreNull() {
         long userId = 1L;
         long itemId = 1L;
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
         when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of(comment));
@@ -199,6 +355,7 @@ class ItemServiceImplTest {
     void getItemById_whenWithoutBookingsForUser_thenReturnItemWithLastAndNextBookingsAreNull() {
         long userId = 2L;
         long itemId = 1L;
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
         when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of(comment));
@@ -218,6 +375,7 @@ class ItemServiceImplTest {
         long itemId = 1L;
         bookingLast.setId(10L);
         bookingNext.setId(20L);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
         when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of(comment));
@@ -237,6 +395,7 @@ class ItemServiceImplTest {
         long itemId = 1L;
         bookingLast.setId(10L);
         bookingNext.setId(20L);
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
         when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of(comment));
@@ -253,7 +412,7 @@ class ItemServiceImplTest {
     @Test
     void createItem_whenUserNotFound_thenObjectNotFoundException() {
         long ownerId = 1L;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.createItem(ownerId, itemDto));
     }
@@ -261,19 +420,20 @@ class ItemServiceImplTest {
     @Test
     void createItem_whenUserFound_thenReturnItemDto() {
         long ownerId = 1L;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(userRepository.existsById(ownerId)).thenReturn(true);
         when(itemRepository.save(item)).thenReturn(item);
 
         ItemDto result = itemService.createItem(ownerId, itemDto);
 
         assertEquals(itemDto, result);
+        verify(itemSearchIndex).put(item);
     }
 
     @Test
     void updateItem_whenUserNotFound_thenObjectNotFoundException() {
         long ownerId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.updateItem(itemId, ownerId, itemDto));
     }
@@ -282,7 +442,7 @@ class ItemServiceImplTest {
     void updateItem_whenItemNotFound_thenObjectNotFoundException() {
         long ownerId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(userRepository.existsById(ownerId)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.updateItem(itemId, ownerId, itemDto));
@@ -293,7 +453,7 @@ class ItemServiceImplTest {
         long ownerId = 1L;
         long itemId = 1L;
         item.setOwnerId(5L);
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(userRepository.existsById(ownerId)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.updateItem(itemId, ownerId, itemDto));
@@ -304,13 +464,15 @@ class ItemServiceImplTest {
         long ownerId = 1L;
         long itemId = 1L;
         itemDto.setName("updateName");
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(userRepository.existsById(ownerId)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(itemRepository.save(item)).thenReturn(item);
+        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         ItemDto result = itemService.updateItem(itemId, ownerId, itemDto);
 
         assertEquals(itemDto.getName(), result.getName());
+        assertEquals("item", item.getName());
+        verify(itemSearchIndex).put(any(Item.class));
     }
 
     @Test
@@ -319,7 +481,7 @@ class ItemServiceImplTest {
         String text = " text";
         int start = 0;
         int size = 10;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.searchItemByName(userId, text, start, size));
     }
@@ -331,7 +493,7 @@ class ItemServiceImplTest {
         int start = 0;
         int size = 10;
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.existsById(userId)).thenReturn(true);
 
         Collection<ItemDtoForBooker> result = itemService.searchItemByName(userId, text, start, size);
 
@@ -347,8 +509,8 @@ class ItemServiceImplTest {
         int size = 10;
         item.setName("item111");
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(itemRepository.findAllItemByText(text, pageable)).thenReturn(new PageImpl<>(List.of(item)));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRepository.findAllItemByText(text, pageable)).thenReturn(new SliceImpl<>(List.of(item)));
 
         Collection<ItemDtoForBooker> result = itemService.searchItemByName(userId, text, start, size);
 
@@ -356,11 +518,98 @@ class ItemServiceImplTest {
         assertEquals(item.getName(), new ArrayList<>(result).get(0).getName());
     }
 
+    @Test
+    void searchItemByName_whenFullTextMode_thenUseRankedQuery() {
+        long userId = 2L;
+        String text = "item";
+        int start = 0;
+        int size = 10;
+        Pageable pageable = PageRequest.of(start / size, size);
+        ReflectionTestUtils.setField(itemService, "searchMode", ItemSearchMode.FULL_TEXT);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRepository.findAllItemByTextRanked(text, pageable)).thenReturn(List.of(item));
+
+        Collection<ItemDtoForBooker> result = itemService.searchItemByName(userId, text, start, size);
+
+        assertEquals(1, result.size());
+        verify(itemRepository, never()).findAllItemByText(anyString(), any());
+    }
+
+    @Test
+    void searchItemByName_whenIndexMode_thenLoadOnlyFoundIdsInIndexOrder() {
+        long userId = 2L;
+        String text = "item";
+        int start = 0;
+        int size = 10;
+        Item item2 = new Item(2L, "item2", "desc2", true, 1L, null);
+        ReflectionTestUtils.setField(itemService, "searchMode", ItemSearchMode.INDEX);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemSearchIndex.search(text, start, size)).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(item2, item));
+
+        List<ItemDtoForBooker> result = new ArrayList<>(itemService.searchItemByName(userId, text, start, size));
+
+        assertEquals(2, result.size());
+        assertEquals(item.getId(), result.get(0).getId());
+        assertEquals(item2.getId(), result.get(1).getId());
+        verify(itemRepository, never()).findAllItemByText(anyString(), any());
+    }
+
+    @Test
+    void searchAvailableItemByName_whenOnlyStartGiven_thenInvalidValidationException() {
+        long userId = 2L;
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThrows(InvalidValidationException.class, () -> itemService.searchAvailableItemByName(
+                userId, "item", LocalDateTime.now().plusDays(1), null, 0, 10));
+        verify(itemRepository, never()).findAllFreeItemByText(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    void searchAvailableItemByName_whenLikeMode_thenUseQueryWithBookingAntiJoin() {
+        long userId = 2L;
+        String text = "item";
+        LocalDateTime availableFrom = LocalDateTime.now().plusDays(1);
+        LocalDateTime availableTo = availableFrom.plusDays(2);
+        Pageable pageable = PageRequest.of(1, 10);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRepository.findAllFreeItemByText(text, BookingStatus.APPROVED, availableFrom, availableTo, pageable))
+                .thenReturn(new SliceImpl<>(List.of(item)));
+
+        Collection<ItemDtoForBooker> result = itemService.searchAvailableItemByName(
+                userId, text, availableFrom, availableTo, 10, 10);
+
+        assertEquals(1, result.size());
+        verify(itemRepository, never()).findAllItemByText(anyString(), any());
+    }
+
+    @Test
+    void searchAvailableItemByName_whenIndexMode_thenFilterByBookingIntervalIndex() {
+        long userId = 2L;
+        String text = "item";
+        LocalDateTime availableFrom = LocalDateTime.now().plusDays(1);
+        LocalDateTime availableTo = availableFrom.plusDays(2);
+        ArgumentCaptor<LongPredicate> filter = ArgumentCaptor.forClass(LongPredicate.class);
+        ReflectionTestUtils.setField(itemService, "searchMode", ItemSearchMode.INDEX);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemSearchIndex.search(eq(text), eq(0), eq(10), filter.capture())).thenReturn(List.of(1L));
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(item));
+        when(bookingIntervalIndex.hasOverlap(1L, availableFrom, availableTo)).thenReturn(false);
+        when(bookingIntervalIndex.hasOverlap(2L, availableFrom, availableTo)).thenReturn(true);
+
+        Collection<ItemDtoForBooker> result = itemService.searchAvailableItemByName(
+                userId, text, availableFrom, availableTo, 0, 10);
+
+        assertEquals(1, result.size());
+        assertTrue(filter.getValue().test(1L));
+        assertFalse(filter.getValue().test(2L));
+    }
+
     @Test
     void deleteItem_whenUserNotFound_thenObjectNotFoundException() {
         long ownerId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.deleteItem(itemId, ownerId));
         verify(itemRepository, never()).deleteById(itemId);
@@ -370,7 +619,7 @@ class ItemServiceImplTest {
     void deleteItem_whenItemNotFound_thenObjectNotFoundException() {
         long ownerId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(userRepository.existsById(ownerId)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.deleteItem(itemId, ownerId));
@@ -381,12 +630,13 @@ class ItemServiceImplTest {
     void deleteItem_whenItemFound_thenItemDeleteInvoke() {
         long ownerId = 1L;
         long itemId = 1L;
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(userRepository.existsById(ownerId)).thenReturn(true);
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
 
         itemService.deleteItem(itemId, ownerId);
 
         verify(itemRepository).deleteById(itemId);
+        verify(itemSearchIndex).remove(itemId);
     }
 
     @Test
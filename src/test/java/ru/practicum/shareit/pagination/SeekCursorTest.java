@@ -0,0 +1,56 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.InvalidValidationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SeekCursorTest {
+
+    @Test
+    void decode_whenEncodedCursor_thenReturnSameCursor() {
+        SeekCursor cursor = new SeekCursor(LocalDateTime.of(2023, 1, 15, 10, 30, 0, 123456000), 42L);
+
+        SeekCursor result = SeekCursor.decode(cursor.encode());
+
+        assertEquals(cursor, result);
+    }
+
+    @Test
+    void decode_whenTokenIsBlank_thenReturnFirst() {
+        assertEquals(SeekCursor.FIRST, SeekCursor.decode(""));
+        assertEquals(SeekCursor.FIRST, SeekCursor.decode(null));
+    }
+
+    @Test
+    void decode_whenTokenIsNotCorrect_thenInvalidValidationException() {
+        assertThrows(InvalidValidationException.class, () -> SeekCursor.decode("not-a-cursor"));
+        assertThrows(InvalidValidationException.class, () -> SeekCursor.decode("%%%"));
+    }
+
+    @Test
+    void cursorPageOf_whenRowsMoreThanSize_thenCutExtraRowAndReturnCursorOfLast() {
+        List<Long> rows = List.of(5L, 4L, 3L);
+
+        CursorPage<Long> result = CursorPage.of(rows, 2, id -> new SeekCursor(SeekCursor.FIRST.getTime(), id));
+
+        assertEquals(List.of(5L, 4L), result.getContent());
+        assertEquals(4L, SeekCursor.decode(result.getNextCursor()).getId());
+    }
+
+    @Test
+    void cursorPageOf_whenRowsNotMoreThanSize_thenNextCursorIsNull() {
+        List<Long> rows = List.of(5L, 4L);
+
+        CursorPage<Long> result = CursorPage.of(rows, 2, id -> new SeekCursor(SeekCursor.FIRST.getTime(), id));
+
+        assertEquals(rows, result.getContent());
+        assertNull(result.getNextCursor());
+    }
+
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.pagination;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TotalCounterTest {
+    private final TotalCounter<Long> counter = new TotalCounter<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_whenCalledTwice_thenLoaderInvokedOnce() {
+        assertEquals(5, counter.get(1L, this::load));
+        assertEquals(5, counter.get(1L, this::load));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void add_whenTotalLoaded_thenTotalMovedByDelta() {
+        counter.get(1L, this::load);
+
+        counter.add(1L, 2);
+        counter.add(1L, -1);
+
+        assertEquals(6, counter.get(1L, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void add_whenTotalNotLoaded_thenDeltaIgnoredAndLoaderUsed() {
+        counter.add(1L, 2);
+
+        assertEquals(5, counter.get(1L, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_whenWriteCommittedDuringLoad_thenCountReturnedButNotKept() {
+        assertEquals(5, counter.get(1L, key -> {
+            counter.add(1L, 1);
+            return load(key);
+        }));
+
+        assertEquals(5, counter.get(1L, this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenWriteInFlight_thenCountNotKeptUntilWriteCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counter.add(1L, 1);
+            counter.get(1L, this::load);
+            counter.get(1L, this::load);
+            assertEquals(2, loads.get());
+
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        counter.get(1L, this::load);
+        counter.get(1L, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void add_whenTransactionRolledBack_thenTotalUnchanged() {
+        counter.get(1L, this::load);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counter.add(1L, 3);
+
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(5, counter.get(1L, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_whenTotalExpired_thenReloaded() {
+        TotalCounter<Long> expiring = new TotalCounter<>(100, Duration.ZERO);
+
+        expiring.get(1L, this::load);
+        expiring.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenTotalMovedByDeltas_thenStillReloadedAfterLoadExpires() {
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        TotalCounter<Long> expiring = new TotalCounter<>(100, Duration.ofMinutes(10), ticker);
+        expiring.get(1L, this::load);
+
+        for (int minute = 0; minute < 12; minute++) {
+            nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+            expiring.add(1L, 1);
+            expiring.get(1L, this::load);
+        }
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenTotalReadOften_thenStillReloadedAfterLoadExpires() {
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        TotalCounter<Long> expiring = new TotalCounter<>(100, Duration.ofMinutes(10), ticker);
+        expiring.get(1L, this::load);
+
+        nanos.addAndGet(Duration.ofMinutes(9).toNanos());
+        expiring.get(1L, this::load);
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        expiring.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private long load(long key) {
+        loads.incrementAndGet();
+        return 5;
+    }
+
+}
@@ -8,9 +8,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -21,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemRequestController.class)
@@ -36,6 +40,9 @@ class ItemRequestControllerIntegrTest {
     @MockBean
     ItemRequestService service;
 
+    @MockBean
+    UserIdentityMap userIdentityMap;
+
 
     @BeforeEach
     public void createRequest() {
@@ -229,4 +236,46 @@ class ItemRequestControllerIntegrTest {
         verify(service).createItemRequest(itemRequestDtoIn, userId);
     }
 
-}
\ No newline at end of file
+    @SneakyThrows
+    @Test
+    void getListOfItemRequestByAllUsers_whenCursor_thenReturnPageAndNextCursorHeader() {
+        long userId = 1L;
+        String cursor = new SeekCursor(LocalDateTime.of(2030, 1, 1, 0, 0), 5L).encode();
+        String nextCursor = new SeekCursor(LocalDateTime.of(2029, 1, 1, 0, 0), 4L).encode();
+        List<ItemRequestDtoOutWithReplies> listRequest = List.of(itemRequestWithReplies);
+        when(service.getListOfItemRequestByAllUsersByCursor(userId, cursor, 1))
+                .thenReturn(new CursorPage<>(listRequest, nextCursor));
+
+        String result = mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("cursor", cursor)
+                        .param("size", String.valueOf(1)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, nextCursor))
+                .andExpect(header().doesNotExist(CursorPage.TOTAL_COUNT_HEADER))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        verify(service, never()).getListOfItemRequestByAllUsers(anyLong(), anyInt(), anyInt());
+        verify(service, never()).countItemRequestsOfOtherUsers(anyLong());
+        assertEquals(objectMapper.writeValueAsString(listRequest), result);
+    }
+
+    @SneakyThrows
+    @Test
+    void getListOfItemRequestByAllUsers_whenTotalRequested_thenReturnTotalCountHeader() {
+        long userId = 1L;
+        when(service.getListOfItemRequestByAllUsers(userId, 0, 10)).thenReturn(List.of(itemRequestWithReplies));
+        when(service.countItemRequestsOfOtherUsers(userId)).thenReturn(42L);
+
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("total", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.TOTAL_COUNT_HEADER, "42"));
+
+        verify(service).countItemRequestsOfOtherUsers(userId);
+    }
+
+}
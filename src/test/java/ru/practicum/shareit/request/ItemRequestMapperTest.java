@@ -8,6 +8,7 @@ import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -37,4 +38,18 @@ class ItemRequestMapperTest {
         assertEquals(listOfItems.size(), result.getItems().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void mapToItemRequestDtoOutWithReplies_whenGroupedReplies_thenEveryRequestGetsOwnItems() {
+        ItemRequest first = new ItemRequest(1L, "desc1", 1L, LocalDateTime.now());
+        ItemRequest second = new ItemRequest(2L, "desc2", 1L, LocalDateTime.now());
+        Item reply = new Item(1L, "name", "desc", true, 2L, 1L);
+
+        List<ItemRequestDtoOutWithReplies> result = ItemRequestMapper.mapToItemRequestDtoOutWithReplies(
+                List.of(first, second), Map.of(1L, List.of(reply)));
+
+        assertEquals(2, result.size());
+        assertEquals(List.of(reply), result.get(0).getItems());
+        assertEquals(List.of(), result.get(1).getItems());
+    }
+
+}
@@ -9,11 +9,13 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -88,7 +90,8 @@ class ItemRequestRepositoryTest {
         long ownerId = 1L;
         Pageable pageable = PageRequest.of(0, 10);
 
-        Collection<ItemRequest> result = itemRequestRepository.findAllRequests(ownerId, pageable).getContent();
+        Collection<ItemRequest> result = itemRequestRepository.findAllRequests(
+                ownerId, SeekCursor.FIRST.getTime(), SeekCursor.FIRST.getId(), pageable);
 
         assertTrue(result.isEmpty());
     }
@@ -99,9 +102,35 @@ class ItemRequestRepositoryTest {
         long ownerId = 10L;
         Pageable pageable = PageRequest.of(0, 10);
 
-        Collection<ItemRequest> result = itemRequestRepository.findAllRequests(ownerId, pageable).getContent();
+        Collection<ItemRequest> result = itemRequestRepository.findAllRequests(
+                ownerId, SeekCursor.FIRST.getTime(), SeekCursor.FIRST.getId(), pageable);
 
         assertEquals(2, result.size());
     }
 
+    @DirtiesContext
+    @Test
+    void findAllRequests_whenCursorOnFirstRequest_thenReturnOlderRequestsOnly() {
+        long ownerId = 10L;
+        LocalDateTime created = LocalDateTime.of(2030, 1, 1, 12, 0);
+        itemRequestRepository.save(new ItemRequest(3L, "disc3", 1L, created));
+        ItemRequest sameTime = itemRequestRepository.save(new ItemRequest(4L, "disc4", 1L, created));
+        Pageable pageable = PageRequest.of(0, 10);
+
+        List<ItemRequest> result = itemRequestRepository.findAllRequests(
+                ownerId, created, sameTime.getId(), pageable);
+
+        assertEquals(3, result.size());
+        assertEquals("disc3", result.get(0).getDescription());
+        assertEquals("disc2", result.get(1).getDescription());
+        assertEquals("disc1", result.get(2).getDescription());
+    }
+
+    @DirtiesContext
+    @Test
+    void countByRequestorId_whenRequestsFound_thenReturnCount() {
+        assertEquals(2, itemRequestRepository.countByRequestorId(1L));
+        assertEquals(0, itemRequestRepository.countByRequestorId(10L));
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,9 +19,11 @@ import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -35,9 +39,13 @@ class ItemRequestServiceImplIntegrationTest {
 
     @Autowired
     private UserRepository userRepository;
+
     @Autowired
     private ItemRequestRepository itemRequestRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void createdUnite() {
         userRepository.save(new User(0L, "owner", "owner@ru"));
@@ -118,4 +126,24 @@ class ItemRequestServiceImplIntegrationTest {
         assertEquals(2, result.size());
     }
 
+    @DirtiesContext
+    @Test
+    void getListOfItemRequestByRequestor_whenRequestsHaveReplies_thenQueryCountDoesNotDependOnRequestCount() {
+        long userId = 2L;
+        for (long requestId = 1; requestId <= 5; requestId++) {
+            itemRequestRepository.save(new ItemRequest(0L, "request" + requestId, userId, LocalDateTime.now()));
+            itemRepository.save(new Item(0L, "name" + requestId, "desc", true, 1L, requestId));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<ItemRequestDtoOutWithReplies> result =
+                new ArrayList<>(itemRequestService.getListOfItemRequestByRequestor(userId));
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(5, result.size());
+        result.forEach(request -> assertEquals(1, request.getItems().size()));
+    }
+
 }
\ No newline at end of file
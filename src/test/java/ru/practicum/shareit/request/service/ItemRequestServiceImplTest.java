@@ -1,31 +1,34 @@
 package ru.practicum.shareit.request.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.exception.InvalidValidationException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutWithReplies;
-import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceFilter;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -45,11 +48,14 @@ class ItemRequestServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
 
-    @InjectMocks
     private ItemRequestServiceImpl itemRequestService;
 
     @BeforeEach
     void createRequest() {
+        UserIdentityMap userIdentityMap = new UserIdentityMap(
+                new UserExistenceFilter(userRepository, new SimpleMeterRegistry(), 100, 0.01));
+        itemRequestService = new ItemRequestServiceImpl(
+                itemRepository, itemRequestRepository, userIdentityMap);
         requestDtoIn = new ItemRequestDtoIn("desc1");
         itemRequest = new ItemRequest(1L, "desc1", 1L, LocalDateTime.now());
     }
@@ -59,7 +65,7 @@ class ItemRequestServiceImplTest {
     void createItemRequest_whenUserNotFound_thenObjectNotFoundException() {
         long userId = 1L;
         ItemRequest newRequest = new ItemRequest(0, requestDtoIn.getDescription(), userId, LocalDateTime.now());
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.createItemRequest(requestDtoIn, userId));
         verify(itemRequestRepository, never()).save(newRequest);
@@ -69,7 +75,7 @@ class ItemRequestServiceImplTest {
     void createItemRequest_whenUserFound_thenReturnNewRequestDtoOut() {
         long userId = 1L;
         ItemRequest newItemRequest = new ItemRequest(0, requestDtoIn.getDescription(), userId, LocalDateTime.now());
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRequestRepository.save(any(ItemRequest.class))).thenReturn(newItemRequest);
 
         ItemRequestDtoOut itemRequestDtoOut = itemRequestService.createItemRequest(requestDtoIn, userId);
@@ -80,7 +86,7 @@ class ItemRequestServiceImplTest {
     @Test
     void getListOfItemRequestByRequestor_whenUserNotFound_thenObjectNotFoundException() {
         long userId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.getListOfItemRequestByRequestor(userId));
         verify(itemRequestRepository, never()).findAllByRequestorIdOrderByCreatedDesc(userId);
@@ -90,21 +96,35 @@ class ItemRequestServiceImplTest {
     void getListOfItemRequestByRequestor_whenUserFound_thenReturnListOfItemRequest() {
         long userId = 1L;
         Collection<ItemRequest> returnListOfItemRequest = List.of(itemRequest);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(userId)).thenReturn(returnListOfItemRequest);
-        when(itemRepository.findAllByRequestId(itemRequest.getId())).thenReturn(List.of(new Item()));
+        when(itemRepository.findAllByRequestIdIn(Set.of(itemRequest.getId())))
+                .thenReturn(List.of(new Item(1L, "item", "desc", true, 2L, itemRequest.getId())));
 
         Collection<ItemRequestDtoOutWithReplies> result = itemRequestService.getListOfItemRequestByRequestor(userId);
 
         assertEquals(1, result.size());
         assertEquals(itemRequest.getId(), new ArrayList<>(result).get(0).getId());
+        assertEquals(1, new ArrayList<>(result).get(0).getItems().size());
+    }
+
+    @Test
+    void getListOfItemRequestByRequestor_whenNoRequests_thenRepliesNotQueried() {
+        long userId = 1L;
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(userId)).thenReturn(List.of());
+
+        Collection<ItemRequestDtoOutWithReplies> result = itemRequestService.getListOfItemRequestByRequestor(userId);
+
+        assertEquals(0, result.size());
+        verify(itemRepository, never()).findAllByRequestIdIn(any());
     }
 
     @Test
     void getItemRequestById_whenUserNotFound_thenObjectNotFoundException() {
         long userId = 1L;
         long requestId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.getItemRequestById(userId, requestId));
         verify(itemRequestRepository, never()).findItemRequestById(requestId);
@@ -115,7 +135,7 @@ class ItemRequestServiceImplTest {
     void getItemRequestById_whenUserFoundButRequestNotFound_thenObjectNotFoundException() {
         long userId = 1L;
         long requestId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRequestRepository.findItemRequestById(requestId)).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.getItemRequestById(userId, requestId));
@@ -127,7 +147,7 @@ class ItemRequestServiceImplTest {
     void getItemRequestById_whenUserFoundAndRequestFound_thenReturnItemRequest() {
         long userId = 1L;
         long requestId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRequestRepository.findItemRequestById(requestId)).thenReturn(Optional.of(itemRequest));
         when(itemRepository.findAllByRequestId(itemRequest.getId())).thenReturn(List.of(new Item()));
 
@@ -140,16 +160,16 @@ class ItemRequestServiceImplTest {
     @Test
     void getListOfItemRequestByAllUsers_whenUserNotFound_thenObjectNotFoundException() {
         long userId = 1L;
-        long requestId = 1L;
         int start = 0;
         int size = 10;
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.getListOfItemRequestByAllUsers(
                 userId, start, size));
-        verify(itemRequestRepository, never()).findAllRequests(userId, pageable);
-        verify(itemRepository, never()).findAllByRequestId(requestId);
+        verify(itemRequestRepository, never()).findAllRequests(
+                userId, SeekCursor.FIRST.getTime(), SeekCursor.FIRST.getId(), pageable);
+        verify(itemRepository, never()).findAllByRequestIdIn(any());
     }
 
     @Test
@@ -158,10 +178,12 @@ class ItemRequestServiceImplTest {
         int start = 0;
         int size = 10;
         Pageable pageable = PageRequest.of(start / size, size);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
-        Page<ItemRequest> page = new PageImpl<>(List.of(itemRequest));
-        when(itemRequestRepository.findAllRequests(userId, pageable)).thenReturn(page);
-        when(itemRepository.findAllByRequestId(itemRequest.getId())).thenReturn(List.of(new Item()));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRequestRepository.findAllRequests(
+                userId, SeekCursor.FIRST.getTime(), SeekCursor.FIRST.getId(), pageable))
+                .thenReturn(List.of(itemRequest));
+        when(itemRepository.findAllByRequestIdIn(Set.of(itemRequest.getId())))
+                .thenReturn(List.of(new Item(1L, "item", "desc", true, 2L, itemRequest.getId())));
 
         Collection<ItemRequestDtoOutWithReplies> result =
                 itemRequestService.getListOfItemRequestByAllUsers(userId, start, size);
@@ -171,4 +193,69 @@ class ItemRequestServiceImplTest {
         assertEquals(1, new ArrayList<>(result).get(0).getItems().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void getListOfItemRequestByAllUsersByCursor_whenMoreRowsThanSize_thenReturnPageWithNextCursor() {
+        long userId = 5L;
+        int size = 1;
+        ItemRequest older = new ItemRequest(2L, "desc2", 1L, itemRequest.getCreated().minusDays(1));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRequestRepository.findAllRequests(
+                userId, SeekCursor.FIRST.getTime(), SeekCursor.FIRST.getId(), PageRequest.of(0, size + 1)))
+                .thenReturn(List.of(itemRequest, older));
+        when(itemRepository.findAllByRequestIdIn(Set.of(itemRequest.getId()))).thenReturn(List.of());
+
+        CursorPage<ItemRequestDtoOutWithReplies> result =
+                itemRequestService.getListOfItemRequestByAllUsersByCursor(userId, null, size);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(itemRequest.getId(), result.getContent().get(0).getId());
+        assertEquals(new SeekCursor(itemRequest.getCreated(), itemRequest.getId()),
+                SeekCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    void getListOfItemRequestByAllUsersByCursor_whenCursorInvalid_thenInvalidValidationException() {
+        assertThrows(InvalidValidationException.class, () ->
+                itemRequestService.getListOfItemRequestByAllUsersByCursor(1L, "not a cursor", 10));
+        verifyNoInteractions(userRepository, itemRequestRepository, itemRepository);
+    }
+
+    @Test
+    void countItemRequestsOfOtherUsers_whenUserFound_thenReturnCountOfOtherRequests() {
+        long userId = 1L;
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRequestRepository.count()).thenReturn(7L);
+        when(itemRequestRepository.countByRequestorId(userId)).thenReturn(2L);
+
+        assertEquals(5L, itemRequestService.countItemRequestsOfOtherUsers(userId));
+    }
+
+    @Test
+    void countItemRequestsOfOtherUsers_whenRequestCreatedByOtherUser_thenCountFromCounters() {
+        long userId = 1L;
+        long otherUserId = 2L;
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRequestRepository.count()).thenReturn(7L);
+        when(itemRequestRepository.countByRequestorId(userId)).thenReturn(2L);
+        when(itemRequestRepository.save(any(ItemRequest.class))).thenReturn(itemRequest);
+        itemRequestService.countItemRequestsOfOtherUsers(userId);
+
+        itemRequestService.createItemRequest(requestDtoIn, otherUserId);
+        long result = itemRequestService.countItemRequestsOfOtherUsers(userId);
+
+        assertEquals(6L, result);
+        verify(itemRequestRepository, times(1)).count();
+        verify(itemRequestRepository, times(1)).countByRequestorId(userId);
+    }
+
+    @Test
+    void countItemRequestsOfOtherUsers_whenTotalsLoadedAtDifferentTimes_thenNotNegative() {
+        long userId = 1L;
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(itemRequestRepository.count()).thenReturn(2L);
+        when(itemRequestRepository.countByRequestorId(userId)).thenReturn(3L);
+
+        assertEquals(0L, itemRequestService.countItemRequestsOfOtherUsers(userId));
+    }
+
+}
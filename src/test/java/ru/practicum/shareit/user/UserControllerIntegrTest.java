@@ -9,6 +9,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserIdentityMap;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.util.Collection;
@@ -33,6 +34,9 @@ class UserControllerIntegrTest {
     @MockBean
     UserService userService;
 
+    @MockBean
+    UserIdentityMap userIdentityMap;
+
     @BeforeEach
     public void createUserDtoIn() {
         userDtoIn = new UserDto(1L, "name", "email@ru");
@@ -69,6 +69,7 @@ class UserMapperTest {
         assertEquals(oldUser.getId(), updateUser.getId());
         assertEquals("newName", updateUser.getName());
         assertEquals("newEmail@ru", updateUser.getEmail());
+        assertEquals("oldName", oldUser.getName());
     }
 
     @Test
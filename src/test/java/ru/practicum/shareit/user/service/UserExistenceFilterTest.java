@@ -0,0 +1,139 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserExistenceFilterTest {
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserExistenceFilter userExistenceFilter;
+
+    @BeforeEach
+    void createFilter() {
+        meterRegistry = new SimpleMeterRegistry();
+        userExistenceFilter = new UserExistenceFilter(userRepository, meterRegistry, 1000, 0.01);
+    }
+
+    @Test
+    void exists_whenNotLoaded_thenAskRepository() {
+        when(userRepository.existsById(5L)).thenReturn(false);
+
+        assertFalse(userExistenceFilter.exists(5L));
+
+        verify(userRepository).existsById(5L);
+    }
+
+    @Test
+    void exists_whenLoaded_thenUnknownIdsConfirmedByRepository() {
+        loadIds(LongStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList()));
+        when(userRepository.existsById(anyLong())).thenAnswer(invocation -> (long) invocation.getArgument(0) <= 1000);
+
+        for (long id = 1; id <= 1000; id++) {
+            assertTrue(userExistenceFilter.exists(id));
+        }
+        for (long id = 1001; id <= 11000; id++) {
+            assertFalse(userExistenceFilter.exists(id));
+        }
+        double falsePositives = checks("false_positive");
+
+        assertEquals(11000, invocations("existsById"));
+        assertTrue(falsePositives < 300, "ложных срабатываний: " + falsePositives);
+        assertEquals(10000 - falsePositives, checks("negative"));
+        assertEquals(1000, checks("confirmed"));
+        assertEquals(0, checks("missed"));
+    }
+
+    @Test
+    void exists_whenUserWrittenPastFilter_thenFoundAndAddedToFilter() {
+        loadIds(List.of(1L));
+        when(userRepository.existsById(2L)).thenReturn(true);
+
+        assertTrue(userExistenceFilter.exists(2L));
+        assertTrue(userExistenceFilter.exists(2L));
+
+        assertEquals(1, checks("missed"));
+        assertEquals(1, checks("confirmed"));
+    }
+
+    @Test
+    void find_whenIdAddedAfterLoad_thenLoadedFromRepository() {
+        loadIds(List.of(1L));
+        User user = new User(2L, "user", "user@ru");
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
+
+        userExistenceFilter.put(2L);
+
+        assertEquals(Optional.of(user), userExistenceFilter.find(2L));
+    }
+
+    @Test
+    void find_whenUserWrittenPastFilter_thenLoadedFromRepository() {
+        loadIds(List.of(1L));
+        User user = new User(2L, "user", "user@ru");
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
+
+        assertEquals(Optional.of(user), userExistenceFilter.find(2L));
+
+        assertEquals(1, checks("missed"));
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void find_whenUserMissing_thenEmpty() {
+        loadIds(List.of(1L));
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(userExistenceFilter.find(2L).isEmpty());
+    }
+
+    @Test
+    void remove_whenManyUsersDeleted_thenFilterRebuilt() {
+        loadIds(List.of(1L, 2L, 3L, 4L));
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.findIdsByIdGreaterThan(anyLong(), any())).thenReturn(List.of(4L));
+
+        userExistenceFilter.remove(1L);
+        userExistenceFilter.remove(2L);
+
+        verify(userRepository, timeout(1000).times(2)).count();
+    }
+
+    private void loadIds(List<Long> ids) {
+        when(userRepository.count()).thenReturn((long) ids.size());
+        when(userRepository.findIdsByIdGreaterThan(anyLong(), any())).thenReturn(ids).thenReturn(List.of());
+        userExistenceFilter.rebuild();
+    }
+
+    private long invocations(String method) {
+        return mockingDetails(userRepository).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals(method))
+                .count();
+    }
+
+    private double checks(String result) {
+        return meterRegistry.counter("shareit.user.filter.checks", "result", result).count();
+    }
+
+}
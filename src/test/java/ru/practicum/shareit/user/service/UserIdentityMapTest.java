@@ -0,0 +1,104 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserIdentityMapTest {
+    private final User user = new User(1L, "user", "user@ru");
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserIdentityMap userIdentityMap;
+
+    @BeforeEach
+    void createMap() {
+        userIdentityMap = new UserIdentityMap(
+                new UserExistenceFilter(userRepository, new SimpleMeterRegistry(), 100, 0.01));
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void require_whenSameUserInOneRequest_thenQueriedOnce() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertSame(user, userIdentityMap.require(1L));
+        assertSame(user, userIdentityMap.require(1L));
+        userIdentityMap.requireExists(1L);
+
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, never()).existsById(1L);
+    }
+
+    @Test
+    void requireExists_whenSameUserInOneRequest_thenQueriedOnce() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        userIdentityMap.requireExists(1L);
+        userIdentityMap.requireExists(1L);
+
+        verify(userRepository, times(1)).existsById(1L);
+        verify(userRepository, never()).findById(1L);
+    }
+
+    @Test
+    void require_whenNextRequest_thenQueriedAgain() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        userIdentityMap.require(1L);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        userIdentityMap.require(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void require_whenOutsideOfRequest_thenQueriedEveryTime() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        userIdentityMap.require(1L);
+        userIdentityMap.require(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void require_whenUserNotFound_thenObjectNotFoundException() {
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class, () -> userIdentityMap.require(1L));
+    }
+
+    @Test
+    void requireExists_whenUserNotFound_thenObjectNotFoundException() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(ObjectNotFoundException.class, () -> userIdentityMap.requireExists(1L));
+    }
+
+}
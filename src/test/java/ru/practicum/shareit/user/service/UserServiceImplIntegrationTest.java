@@ -1,16 +1,26 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.config.CacheConfig;
+import ru.practicum.shareit.config.EntityCache;
 import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -25,6 +35,15 @@ class UserServiceImplIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void getAllUsers_whenDBIsEmpty_thenReturnEmptyList() {
 
@@ -133,4 +152,63 @@ class UserServiceImplIntegrationTest {
         assertEquals(user.getEmail(), userDto2.getEmail());
     }
 
-}
\ No newline at end of file
+    @DirtiesContext
+    @Test
+    void getUserById_whenCalledTwice_thenSecondCallServedFromCache() {
+        userRepository.save(new User(0L, "user", "user@ru"));
+        userService.getUserById(1L);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        UserDto result = userService.getUserById(1L);
+
+        assertEquals("user", result.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, usersCache().stats().hitCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void getUserById_whenServedFromCache_thenHitCountedInMetrics() {
+        userRepository.save(new User(0L, "user", "user@ru"));
+        userService.getUserById(1L);
+
+        userService.getUserById(1L);
+
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.USERS)
+                .tag("result", "hit")
+                .functionCounter()
+                .count());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateUser_whenUserIsCached_thenCacheEvictedAndReturnNewData() {
+        userRepository.save(new User(0L, "user", "user@ru"));
+        userService.getUserById(1L);
+
+        userService.updateUser(new UserDto(null, "newName", null), 1L);
+
+        assertNull(usersCache().getIfPresent(1L));
+        assertEquals("newName", userService.getUserById(1L).getName());
+    }
+
+    @DirtiesContext
+    @Test
+    void deleteUser_whenUserIsCached_thenCacheEvicted() {
+        userRepository.save(new User(0L, "user", "user@ru"));
+        userService.getUserById(1L);
+
+        userService.deleteUser(1L);
+
+        assertThrows(ObjectNotFoundException.class, () -> userService.getUserById(1L));
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, ?> usersCache() {
+        Cache cache = ((TransactionAwareCacheDecorator) cacheManager.getCache(CacheConfig.USERS)).getTargetCache();
+        return ((EntityCache<?>) cache).getNativeCache();
+    }
+
+}
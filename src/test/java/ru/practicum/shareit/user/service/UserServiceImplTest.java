@@ -28,6 +28,9 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserExistenceFilter userExistenceFilter;
+
     @InjectMocks
     private UserServiceImpl userServiceImpl;
 
@@ -57,6 +60,7 @@ class UserServiceImplTest {
         UserDto returnUserDto = userServiceImpl.createUser(userDto);
 
         verify(userRepository).save(userForSave);
+        verify(userExistenceFilter).put(userFromDb.getId());
         assertEquals(userFromDb.getId(), returnUserDto.getId());
         assertEquals(userFromDb.getName(), returnUserDto.getName());
     }
@@ -114,6 +118,7 @@ class UserServiceImplTest {
         userServiceImpl.deleteUser(userId);
 
         verify(userRepository, times(1)).deleteById(userId);
+        verify(userExistenceFilter).remove(userId);
     }
 
     @Test
@@ -0,0 +1,38 @@
+-- Batch booking creation benchmark for PostgreSQL: 1000 bookings through the single-call path vs one batch.
+-- Run against a scratch database migrated by Flyway: psql -d shareit_bench -f booking_batch.sql
+-- Every statement issued by \gexec is a separate round trip, as every POST /bookings call is.
+
+INSERT INTO users (user_name, email)
+SELECT 'bench ' || g, 'bench-batch' || g || '@bench.ru'
+FROM generate_series(1, 2) AS g
+ON CONFLICT (email) DO NOTHING;
+
+INSERT INTO items (item_name, description, available, owner_id)
+SELECT 'batch item ' || g, 'description ' || g, true, (SELECT id FROM users WHERE email = 'bench-batch1@bench.ru')
+FROM generate_series(1, 1000) AS g;
+
+ANALYZE users;
+ANALYZE items;
+
+\timing on
+
+-- Single-call path (BookingServiceImpl.createBooking): item read and insert per booking
+SELECT format('SELECT * FROM items WHERE id = %s', i.id),
+       format('INSERT INTO bookings (start_date, end_date, item_id, booker_id, owner_id, status, created_date, phase) ' ||
+              'VALUES (now() + interval ''1 day'', now() + interval ''2 days'', %s, %s, %s, ''WAITING'', now(), ''FUTURE'')',
+              i.id, (SELECT id FROM users WHERE email = 'bench-batch2@bench.ru'), i.owner_id)
+FROM items AS i
+WHERE i.item_name LIKE 'batch item %'
+ORDER BY i.id
+\gexec
+
+-- Batch path (BookingServiceImpl.createBookings): one item read, then the inserts in one batch
+SELECT i.id, i.owner_id, i.available
+FROM items AS i
+WHERE i.id IN (SELECT id FROM items WHERE item_name LIKE 'batch item %');
+
+INSERT INTO bookings (start_date, end_date, item_id, booker_id, owner_id, status, created_date, phase)
+SELECT now() + interval '3 days', now() + interval '4 days', i.id,
+       (SELECT id FROM users WHERE email = 'bench-batch2@bench.ru'), i.owner_id, 'WAITING', now(), 'FUTURE'
+FROM items AS i
+WHERE i.item_name LIKE 'batch item %';
@@ -0,0 +1,84 @@
+-- Owner booking listing benchmark for PostgreSQL: filter through items.owner_id vs denormalized bookings.owner_id.
+-- Run against a scratch database migrated by Flyway: psql -d shareit_bench -f booking_owner.sql
+-- 1000 owners with 10 items each, 2 000 000 bookings; the measured owner has about 2000 bookings.
+
+INSERT INTO users (user_name, email)
+SELECT 'bench ' || g, 'bench' || g || '@bench.ru'
+FROM generate_series(1, 1001) AS g
+ON CONFLICT (email) DO NOTHING;
+
+INSERT INTO items (item_name, description, available, owner_id)
+SELECT 'item ' || g, 'description ' || g, true,
+       (SELECT min(id) FROM users WHERE email LIKE 'bench%@bench.ru') + g % 1000
+FROM generate_series(1, 10000) AS g;
+
+INSERT INTO bookings (start_date, end_date, item_id, booker_id, owner_id, status, created_date, phase)
+SELECT timestamp '2020-01-01' + g * interval '1 minute',
+       timestamp '2020-01-01' + g * interval '1 minute' + interval '1 hour',
+       i.id,
+       (SELECT max(id) FROM users WHERE email LIKE 'bench%@bench.ru'),
+       i.owner_id,
+       CASE WHEN g % 4 = 0 THEN 'WAITING' ELSE 'REJECTED' END,
+       timestamp '2020-01-01' + g * interval '1 minute' - interval '1 day',
+       'PAST'
+FROM generate_series(1, 2000000) AS g
+JOIN (SELECT id, owner_id, row_number() OVER (ORDER BY id) - 1 AS rn FROM items) AS i ON i.rn = g % 10000;
+
+ANALYZE users;
+ANALYZE items;
+ANALYZE bookings;
+
+\timing on
+
+-- Before: owner filter through the items join (BookingRepository.findAllDtoByOwner up to V7)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT b.id, b.start_date, b.end_date, b.status, b.booker_id, i.id, i.item_name
+FROM bookings AS b JOIN items AS i ON i.id = b.item_id
+WHERE i.owner_id = (SELECT min(id) FROM users WHERE email LIKE 'bench%@bench.ru') + 1
+ORDER BY b.start_date DESC, b.id DESC
+LIMIT 11;
+
+-- After: single-table range scan on idx_bookings_owner_start (BookingRepository.findAllDtoByOwner)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT b.id, b.start_date, b.end_date, b.status, b.booker_id, i.id, i.item_name
+FROM bookings AS b JOIN items AS i ON i.id = b.item_id
+WHERE b.owner_id = (SELECT min(id) FROM users WHERE email LIKE 'bench%@bench.ru') + 1
+ORDER BY b.start_date DESC, b.id DESC
+LIMIT 11;
+
+-- Before: status filter through the items join (BookingRepository.findStatusDtoByOwner up to V7)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT b.id, b.start_date, b.end_date, b.status, b.booker_id, i.id, i.item_name
+FROM bookings AS b JOIN items AS i ON i.id = b.item_id
+WHERE i.owner_id = (SELECT min(id) FROM users WHERE email LIKE 'bench%@bench.ru') + 1
+  AND b.status = 'WAITING'
+ORDER BY b.start_date DESC, b.id DESC
+LIMIT 11;
+
+-- After: single-table range scan on idx_bookings_owner_status_start (BookingRepository.findStatusDtoByOwner)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT b.id, b.start_date, b.end_date, b.status, b.booker_id, i.id, i.item_name
+FROM bookings AS b JOIN items AS i ON i.id = b.item_id
+WHERE b.owner_id = (SELECT min(id) FROM users WHERE email LIKE 'bench%@bench.ru') + 1
+  AND b.status = 'WAITING'
+ORDER BY b.start_date DESC, b.id DESC
+LIMIT 11;
+
+-- Before: current bookings by a time range over idx_bookings_owner_start (findCurrentDtoByOwner up to V9)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT b.id, b.start_date, b.end_date, b.status, b.booker_id, i.id, i.item_name
+FROM bookings AS b JOIN items AS i ON i.id = b.item_id
+WHERE b.owner_id = (SELECT min(id) FROM users WHERE email LIKE 'bench%@bench.ru') + 1
+  AND b.start_date < now() AND b.end_date > now()
+ORDER BY b.start_date DESC, b.id DESC
+LIMIT 11;
+
+-- After: phase equality on idx_bookings_owner_phase_start with the recheck window (findCurrentDtoByOwner)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT b.id, b.start_date, b.end_date, b.status, b.booker_id, i.id, i.item_name
+FROM bookings AS b JOIN items AS i ON i.id = b.item_id
+WHERE b.owner_id = (SELECT min(id) FROM users WHERE email LIKE 'bench%@bench.ru') + 1
+  AND (b.phase = 'CURRENT' OR (b.phase = 'FUTURE' AND b.start_date > now() - interval '5 minutes'))
+  AND b.start_date < now() AND b.end_date > now()
+ORDER BY b.start_date DESC, b.id DESC
+LIMIT 11;
@@ -0,0 +1,33 @@
+-- Item search benchmark for PostgreSQL: LIKE scan vs trigram indexes with full-text ranking.
+-- Run against a scratch database migrated by Flyway: psql -d shareit_bench -f item_search.sql
+
+INSERT INTO users (user_name, email)
+SELECT 'bench', 'bench@bench.ru'
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'bench@bench.ru');
+
+INSERT INTO items (item_name, description, available, owner_id)
+SELECT 'item ' || md5(g::text),
+       'description ' || md5((g * 7)::text) || CASE WHEN g % 1000 = 0 THEN ' дрель аккумуляторная' ELSE '' END,
+       g % 10 <> 0,
+       (SELECT id FROM users WHERE email = 'bench@bench.ru')
+FROM generate_series(1, 1000000) AS g;
+
+ANALYZE items;
+
+\timing on
+
+-- LIKE mode (ItemRepository.findAllItemByText)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items AS i
+WHERE i.available = true
+  AND (upper(i.item_name) LIKE upper('%дрель%') OR upper(i.description) LIKE upper('%дрель%'))
+LIMIT 10;
+
+-- FULL_TEXT mode (ItemRepository.findAllItemByTextRanked)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items AS i
+WHERE i.available = true
+  AND (upper(i.item_name) LIKE upper('%дрель%')
+    OR upper(i.description) LIKE upper('%дрель%'))
+ORDER BY ts_rank(i.search_vector, plainto_tsquery('simple', 'дрель')) DESC, i.id
+LIMIT 10;